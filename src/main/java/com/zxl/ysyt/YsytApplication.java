@@ -3,9 +3,11 @@ package com.zxl.ysyt;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.zxl.ysyt.mapper")
+@EnableScheduling
 public class YsytApplication {
 
     public static void main(String[] args) {
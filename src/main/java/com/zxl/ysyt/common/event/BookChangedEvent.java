@@ -0,0 +1,30 @@
+package com.zxl.ysyt.common.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 20:40
+ *
+ * 图书表有改动（新增、修改、删除），由 BookServiceImpl 在写成功后发布，依赖图书目录的缓存据此失效
+ */
+public class BookChangedEvent extends ApplicationEvent {
+
+    //改动涉及的图书 id；按条件批量修改、删除时不知道具体是哪些，为 null
+    private final Collection<String> ids;
+
+    public BookChangedEvent(Object source) {
+        this(source, null);
+    }
+
+    public BookChangedEvent(Object source, Collection<String> ids) {
+        super(source);
+        this.ids = ids;
+    }
+
+    public Collection<String> getIds() {
+        return ids;
+    }
+}
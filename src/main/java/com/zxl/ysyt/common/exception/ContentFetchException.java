@@ -0,0 +1,24 @@
+package com.zxl.ysyt.common.exception;
+
+import java.io.IOException;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 17:50
+ *
+ * 从文件服务器读取图书内容失败（连接不上、超时、服务端出错），重试之后仍然失败才会抛出
+ * 对象本身不存在时抛的是 FileNotFoundException，不是这个异常
+ */
+public class ContentFetchException extends IOException {
+
+    private final String location;
+
+    public ContentFetchException(String location, Throwable cause) {
+        super("读取 " + location + " 失败", cause);
+        this.location = location;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+}
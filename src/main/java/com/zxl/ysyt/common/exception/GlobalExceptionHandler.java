@@ -0,0 +1,38 @@
+package com.zxl.ysyt.common.exception;
+
+import com.alibaba.fastjson.JSON;
+import com.zxl.ysyt.common.lang.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 17:50
+ *
+ * 读取图书内容时的异常统一转成 Result 返回，不再把空字符串当成正文
+ */
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(FileNotFoundException.class)
+    public String handle(FileNotFoundException e) {
+        return JSON.toJSONString(Result.fail(404, "图书内容不存在", null));
+    }
+
+    @ExceptionHandler(ContentFetchException.class)
+    public String handle(ContentFetchException e) {
+        log.warn("读取图书内容失败：{}", e.getLocation(), e);
+        return JSON.toJSONString(Result.fail(503, "图书内容暂时无法读取，请稍后再试", null));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public String handle(RejectedExecutionException e) {
+        log.warn("请求被拒绝：{}", e.getMessage());     //读取图书内容的线程池或者评论写入队列已满
+        return JSON.toJSONString(Result.fail(503, "服务器繁忙，请稍后再试", null));
+    }
+}
@@ -0,0 +1,21 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 22:40
+ *
+ * 批量移动书架记录的请求体，比如登录后把游客书架并到自己的书架上
+ */
+@Data
+public class BookcaseMove implements Serializable {
+
+    private List<Integer> ids;
+    private String from;       //原来的用户id
+    private String to;         //移到哪个用户的书架
+
+}
@@ -0,0 +1,25 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 11:05
+ *
+ * 目录里的一章，offset/length 是章节在文件中的字节范围
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Chapter implements Serializable {
+
+    private int index;        //第几章，从 0 开始
+    private String title;     //章节标题
+    private long offset;      //章节起始字节
+    private long length;      //章节字节数
+
+}
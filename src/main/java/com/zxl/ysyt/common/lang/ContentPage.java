@@ -0,0 +1,25 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 10:12
+ *
+ * 图书内容的一页（按字节偏移分页），offset/next 都是存储对象里的字节位置
+ * 同一本书可能有 GB2312 原文和 UTF-8 副本两份，同一段文字在两份里的字节位置不同，charset 说明偏移是哪一份的；
+ * 翻页和保存进度时把 charset 和 next 一起传回，副本中途生成也不会错位
+ */
+@Data
+public class ContentPage implements Serializable {
+
+    private long offset;      //本页在文件中的起始字节
+    private long next;        //下一页的起始字节，客户端翻页时原样传回
+    private int length;       //本页实际读取的字节数
+    private boolean eof;      //是否已经读到文件末尾
+    private String content;   //本页文本
+    private String charset;   //offset/next 所在那份文本的编码，GB2312 是原文，UTF-8 是副本
+
+}
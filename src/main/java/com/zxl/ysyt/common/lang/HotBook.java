@@ -0,0 +1,22 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 00:20
+ *
+ * 热门图书榜的一项，score 是最近一段时间里被打开的估计次数
+ */
+@Data
+public class HotBook implements Serializable {
+
+    private String id;
+    private String bname;
+    private String author;
+    private String cover;
+    private long score;
+
+}
@@ -0,0 +1,28 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 21:00
+ *
+ * 按键翻页的一页数据，翻下一页时把 next 原样作为 after 传回
+ */
+@Data
+public class KeysetPage<T> implements Serializable {
+
+    private List<T> records;
+    private String next;        //下一页的游标，没有下一页时为 null
+    private boolean hasMore;
+
+    public static <T> KeysetPage<T> of(List<T> records, String next) {
+        KeysetPage<T> page = new KeysetPage<>();
+        page.setRecords(records);
+        page.setNext(next);
+        page.setHasMore(next != null);
+        return page;
+    }
+}
@@ -0,0 +1,24 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 19:40
+ *
+ * 全文搜索的一条结果，对应书中的一个片段
+ */
+@Data
+public class SearchHit implements Serializable {
+
+    private String bookId;
+    private String bname;
+    private String author;
+    private int offset;        //片段在正文里的起始字符
+    private int length;        //片段的字符数
+    private double score;
+    private String snippet;    //摘要，命中的词用 <em> 标出，其余内容已做 HTML 转义
+
+}
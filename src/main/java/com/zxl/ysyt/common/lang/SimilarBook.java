@@ -0,0 +1,22 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 00:50
+ *
+ * 相似图书推荐的一项，score 是作者、关键字、同书架三部分相似度的加权和
+ */
+@Data
+public class SimilarBook implements Serializable {
+
+    private String id;
+    private String bname;
+    private String author;
+    private String cover;
+    private double score;
+
+}
@@ -0,0 +1,21 @@
+package com.zxl.ysyt.common.lang;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 20:10
+ *
+ * 输入联想的一条结果，只带前端下拉框需要的字段
+ */
+@Data
+public class Suggestion implements Serializable {
+
+    private String id;
+    private String bname;
+    private String author;
+    private String keyword;
+
+}
@@ -0,0 +1,46 @@
+package com.zxl.ysyt.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 18:20
+ *
+ * 图书内容接口改成异步处理，Tomcat 工作线程收到请求后马上释放，真正的读取在 contentExecutor 里进行，
+ * 几个读大书的慢连接不会把登录、图书列表这些接口的线程也占掉
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ContentConfig contentConfig;
+
+    @Bean
+    public ThreadPoolTaskExecutor contentExecutor() {
+        ContentConfig.Executor config = contentConfig.getExecutor();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getCorePoolSize());
+        executor.setMaxPoolSize(config.getMaxPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setThreadNamePrefix("content-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());    //满了就拒绝，不能退回到 Tomcat 线程里执行
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * StreamingResponseBody 也在 contentExecutor 里写出
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(contentExecutor());
+        configurer.setDefaultTimeout(contentConfig.getExecutor().getTimeoutMillis());
+    }
+}
@@ -0,0 +1,27 @@
+package com.zxl.ysyt.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 22:10
+ *
+ * 书架相关的配置，对应 application.yml 里的 bookcase 节点
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bookcase")
+public class BookcaseConfig {
+
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Cache {
+        /**
+         * 最多缓存多少个用户的书架，超出后按 LRU 淘汰
+         */
+        private int maxUsers = 10000;
+    }
+}
@@ -0,0 +1,37 @@
+package com.zxl.ysyt.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:30
+ *
+ * 评论相关的配置，对应 application.yml 里的 comment 节点
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "comment")
+public class CommentConfig {
+
+    /**
+     * 等待写库的评论最多排多少条，排满后新评论直接返回繁忙
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 每次批量写库最多带几条
+     */
+    private int batchSize = 500;
+
+    /**
+     * 拿到第一条评论后最多再等多久凑一批（毫秒）
+     */
+    private long lingerMillis = 100;
+
+    /**
+     * 缓存第一页评论的图书数量，超出后按 LRU 淘汰
+     */
+    private int hotBooks = 1000;
+}
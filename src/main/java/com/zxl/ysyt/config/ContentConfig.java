@@ -0,0 +1,121 @@
+package com.zxl.ysyt.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 15:20
+ *
+ * 图书内容读取相关的配置，对应 application.yml 里的 content 节点
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "content")
+public class ContentConfig {
+
+    private Cache cache = new Cache();
+
+    private Disk disk = new Disk();
+
+    private Http http = new Http();
+
+    private Executor executor = new Executor();
+
+    private Search search = new Search();
+
+    @Data
+    public static class Cache {
+        /**
+         * 内存里缓存的解码后文本最多占用多少字节
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Disk {
+        /**
+         * 是否启用本地磁盘缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存目录
+         */
+        private String dir = System.getProperty("java.io.tmpdir") + "/ysyt-content";
+
+        /**
+         * 磁盘缓存最多占用多少字节
+         */
+        private long maxBytes = 2L * 1024 * 1024 * 1024;
+    }
+
+    @Data
+    public static class Http {
+        /**
+         * 连接 minio 的超时时间（毫秒）
+         */
+        private long connectTimeoutMillis = 2000;
+
+        /**
+         * 两次读到数据之间的最长间隔（毫秒），防止线程卡死在半死不活的连接上
+         */
+        private long readTimeoutMillis = 10000;
+
+        private long writeTimeoutMillis = 10000;
+
+        /**
+         * 连接池里最多保留的空闲连接数
+         */
+        private int maxIdleConnections = 32;
+
+        /**
+         * 空闲连接保留多久（毫秒）
+         */
+        private long keepAliveMillis = 5 * 60 * 1000L;
+
+        /**
+         * 读取失败后的重试次数，只对连接失败、超时这类网络错误重试
+         */
+        private int retries = 2;
+
+        /**
+         * 第一次重试前等待的时间（毫秒），之后每次翻倍
+         */
+        private long retryBackoffMillis = 100;
+    }
+
+    @Data
+    public static class Executor {
+        /**
+         * 读取图书内容的线程数，和 Tomcat 的工作线程分开，慢速下载只会占满这里
+         */
+        private int corePoolSize = 16;
+
+        private int maxPoolSize = 32;
+
+        /**
+         * 排队的请求数，超过后直接拒绝
+         */
+        private int queueCapacity = 200;
+
+        /**
+         * 异步请求的超时时间（毫秒）
+         */
+        private long timeoutMillis = 60000;
+    }
+
+    @Data
+    public static class Search {
+        /**
+         * 是否建立全文索引
+         */
+        private boolean enabled = true;
+
+        /**
+         * 全文索引最多收录多少字，正文和倒排表都在堆内存里，超过后新书不再加入
+         */
+        private long maxChars = 20L * 1000 * 1000;
+    }
+}
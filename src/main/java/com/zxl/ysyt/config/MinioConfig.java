@@ -2,10 +2,14 @@ package com.zxl.ysyt.config;
 
 import io.minio.MinioClient;
 import lombok.Data;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "minio")
@@ -21,11 +25,25 @@ public class MinioConfig {
     private String secretKey;
 
     @Bean
-    public MinioClient getMinioClient(){
+    public MinioClient getMinioClient(ContentConfig contentConfig){
         MinioClient minioClient = MinioClient.builder()
                 .endpoint(endpoint)
                 .credentials(accessKey,secretKey)
+                .httpClient(httpClient(contentConfig.getHttp()))
                 .build();
         return minioClient;
     }
-}
\ No newline at end of file
+
+    /**
+     * 所有对 minio 的请求共用一个连接池，保持长连接；超时都要设上，不然网络抖动时线程会一直挂在 socket 上
+     */
+    private OkHttpClient httpClient(ContentConfig.Http http) {
+        return new OkHttpClient.Builder()
+                .connectTimeout(http.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(http.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(http.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAliveMillis(), TimeUnit.MILLISECONDS))
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.zxl.ysyt.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:00
+ *
+ * 阅读进度相关的配置，对应 application.yml 里的 progress 节点
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "progress")
+public class ProgressConfig {
+
+    /**
+     * 多久把攒下的进度写一次库（毫秒）
+     */
+    private long flushIntervalMillis = 10000;
+
+    /**
+     * 每条批量写入语句最多带几行
+     */
+    private int batchSize = 500;
+
+    /**
+     * 内存里最多保留多少条已经写库的进度供读取，超出后丢掉一部分，再读时查库
+     */
+    private int maxEntries = 100000;
+}
@@ -0,0 +1,38 @@
+package com.zxl.ysyt.config;
+
+import com.zxl.ysyt.util.SensitiveFilter;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 01:20
+ *
+ * 敏感词过滤的配置，对应 application.yml 里的 sensitive 节点
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sensitive")
+public class SensitiveConfig {
+
+    /**
+     * 词库位置，一行一个词，# 开头的是注释；线上用 file: 指到外部文件，改了以后会自动重新加载
+     */
+    private String dictionary = "classpath:sensitive-words.txt";
+
+    /**
+     * 多久检查一次词库文件有没有改动（毫秒）
+     */
+    private long reloadIntervalMillis = 60000;
+
+    /**
+     * 评论命中敏感词时的处理，默认拒绝，用户改了再发
+     */
+    private SensitiveFilter.Policy commentPolicy = SensitiveFilter.Policy.REJECT;
+
+    /**
+     * transToTxt 上传的文本命中时的处理，默认打码后照常保存
+     */
+    private SensitiveFilter.Policy textPolicy = SensitiveFilter.Policy.MASK;
+}
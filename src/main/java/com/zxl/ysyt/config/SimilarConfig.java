@@ -0,0 +1,39 @@
+package com.zxl.ysyt.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 00:50
+ *
+ * 相似图书推荐的配置，对应 application.yml 里的 similar 节点
+ * 三个权重分别乘在作者相同（0 或 1）、关键字相似度、同书架相似度（都在 0 到 1 之间）上，相加得到相似度
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "similar")
+public class SimilarConfig {
+
+    /**
+     * 每本书保留几本相似图书
+     */
+    private int topN = 10;
+
+    private double authorWeight = 0.4;
+
+    private double keywordWeight = 0.3;
+
+    private double shelfWeight = 0.3;
+
+    /**
+     * 多久增量刷新一次（毫秒）
+     */
+    private long refreshIntervalMillis = 60000;
+
+    /**
+     * 每次刷新最多重算几本书，剩下的留到下一次，免得一次改动太多时长时间占着定时任务线程
+     */
+    private int maxPerRound = 5000;
+}
@@ -1,15 +1,46 @@
 package com.zxl.ysyt.controller;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.zxl.ysyt.common.lang.Chapter;
+import com.zxl.ysyt.common.lang.ContentPage;
+import com.zxl.ysyt.common.lang.KeysetPage;
+import com.zxl.ysyt.common.lang.Result;
+import com.zxl.ysyt.common.lang.SearchHit;
+import com.zxl.ysyt.common.lang.Suggestion;
+import com.zxl.ysyt.config.SimilarConfig;
 import com.zxl.ysyt.pojo.Book;
 import com.zxl.ysyt.service.BookService;
-import com.zxl.ysyt.util.TxtToString;
+import com.zxl.ysyt.util.BookContentUtil;
+import com.zxl.ysyt.util.BookCounters;
+import com.zxl.ysyt.util.BookIndex;
+import com.zxl.ysyt.util.BookIndexer;
+import com.zxl.ysyt.util.BookSearcher;
+import com.zxl.ysyt.util.CatalogIndex;
+import com.zxl.ysyt.util.CatalogSnapshot;
+import com.zxl.ysyt.util.Conditional;
+import com.zxl.ysyt.util.ContentCache;
+import com.zxl.ysyt.util.DiskContentCache;
+import com.zxl.ysyt.util.HotBooks;
+import com.zxl.ysyt.util.Projection;
+import com.zxl.ysyt.util.SimilarBooks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author 汉卿
@@ -19,47 +50,367 @@ import java.util.List;
 @RequestMapping("/book")
 public class BookController {    //负责对图书的增删改查
 
+    //和原来直接返回 String 时的响应类型保持一致
+    private static final MediaType TEXT_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+
+    //fields 参数里允许的属性和对应的列
+    private static final Map<String, String> LIST_FIELDS = new LinkedHashMap<>();
+
+    static {
+        LIST_FIELDS.put("id", "id");
+        LIST_FIELDS.put("bname", "bname");
+        LIST_FIELDS.put("author", "author");
+        LIST_FIELDS.put("url", "url");
+        LIST_FIELDS.put("outline", "outline");
+        LIST_FIELDS.put("cover", "cover");
+        LIST_FIELDS.put("keyword", "keyword");
+        LIST_FIELDS.put("createTime", "create_time");
+        LIST_FIELDS.put("updateTime", "update_time");
+    }
+
+    private static final String DEFAULT_LIST_FIELDS = "id,bname,author,cover,keyword";
+
+    private static final int DEFAULT_LIST_SIZE = 20;
+
+    private static final int MAX_LIST_SIZE = 100;
+
+    private static final int MAX_FIND_IDS = 1000;
+
     @Autowired
     BookService bookService;
 
+    @Autowired
+    BookContentUtil bookContentUtil;
+
+    @Autowired
+    BookCounters bookCounters;
+
+    @Autowired
+    HotBooks hotBooks;
+
+    @Autowired
+    SimilarBooks similarBooks;
+
+    @Autowired
+    SimilarConfig similarConfig;
+
+    @Autowired
+    BookIndexer bookIndexer;
+
+    @Autowired
+    BookSearcher bookSearcher;
+
+    @Autowired
+    CatalogIndex catalogIndex;
+
+    @Autowired
+    CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    ContentCache contentCache;
+
+    @Autowired
+    DiskContentCache diskContentCache;
+
     @Resource
     private HttpServletResponse httpServletResponse;
 
+    @Resource
+    private HttpServletRequest httpServletRequest;
+
 
     @PostMapping("/addbook")
     public String addBook(@RequestBody Book book) {
         Book book1 = new Book();
         book1.setBname(book.getBname());
         book1.setAuthor(book.getAuthor());
+        book1.setUrl(book.getUrl());
         bookService.save(book1);
 
+        bookIndexer.indexAsync(Collections.singletonList(book1));    //入库时顺便建立章节/分页索引
+        bookSearcher.indexAsync(Collections.singletonList(book1));   //以及全文索引
+
         return "成功添加图书";
 
     }
 
-    @PostMapping("/findAll")
-    public String findAll() {         //所有图书，提供给前端首页数据渲染
-        List<Book> list = bookService.list();
-        return JSON.toJSONString(list);
+    @RequestMapping(value = "/findAll", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<byte[]> findAll() {         //所有图书，提供给前端首页数据渲染，直接返回缓存的快照；GET 请求带 If-None-Match 时由 Spring 回 304
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.get();
+
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(TEXT_UTF8)
+                .body(snapshot.getJson());
+    }
+
+    /**
+     * 分页列出图书，按 id 或创建时间往后翻，不用 OFFSET，翻到多深都是走索引
+     *
+     * @param after  上一页返回的 next，第一页不传
+     * @param size   每页条数，最多 100
+     * @param fields 逗号分隔的属性名，只查这些列，默认 id,bname,author,cover,keyword
+     * @param sort   id（默认，从旧到新）或 createTime（从新到旧）
+     */
+    @GetMapping("/list")
+    public String list(String after, Integer size, String fields, String sort) {
+        boolean byCreateTime = "createTime".equals(sort);
+        if (sort != null && !byCreateTime && !"id".equals(sort)) {
+            return JSON.toJSONString(Result.fail("不支持的排序：" + sort));
+        }
+        int pageSize = Math.min(size == null || size <= 0 ? DEFAULT_LIST_SIZE : size, MAX_LIST_SIZE);
+        try {
+            String[] columns = byCreateTime
+                    ? Projection.columns(fields, LIST_FIELDS, DEFAULT_LIST_FIELDS, "id", "createTime")
+                    : Projection.columns(fields, LIST_FIELDS, DEFAULT_LIST_FIELDS, "id");
+            KeysetPage<Book> page = bookService.listPage(after == null || after.isEmpty() ? null : after,
+                    pageSize, columns, byCreateTime);
+
+            return JSON.toJSONString(page);
+        } catch (IllegalArgumentException e) {     //字段不在白名单里，或者游标格式不对
+            return JSON.toJSONString(Result.fail(e.getMessage()));
+        }
     }
 
     @PostMapping("/finOne")
     public String finOne(@RequestBody Book book) {     //查找出其中一本图书，提供给某本书的详情页，动态渲染
         Book book1 = bookService.getById(book.getId());
+        if (book1 != null) {
+            hotBooks.hit(book1.getId());     //打开详情页也算热度
+        }
 
         return JSON.toJSONString(book1);
     }
+
+    @PostMapping("/findByIds")
+    public String findByIds(@RequestBody List<String> ids) {     //一次取多本书，代替逐本调用 finOne；按请求的顺序返回，不存在的位置是 null
+        if (ids == null || ids.size() > MAX_FIND_IDS) {
+            return JSON.toJSONString(Result.fail("一次最多查询 " + MAX_FIND_IDS + " 本"));
+        }
+
+        //同一个 id 请求了多次时列表里是同一个对象，关掉循环引用检测，否则后面的会输出成 $ref
+        return JSON.toJSONString(catalogSnapshot.findByIds(ids), SerializerFeature.DisableCircularReferenceDetect);
+    }
+
+    @GetMapping("/findByIds")
+    public String findByIdsGet(@RequestParam List<String> ids) {     //findByIds 的 GET 形式，ids=1,2,3
+        return findByIds(ids);
+    }
+
+    @GetMapping("/findOne")
+    public String findOne(Integer id) {     //finOne 的 GET 形式，图书没改过时回 304
+        if (id == null) {
+            return JSON.toJSONString(Result.fail("id 不能为空"));
+        }
+        Book book = bookService.getById(id);
+        if (book != null) {
+            hotBooks.hit(book.getId());     //打开详情页也算热度
+        }
+        if (book != null && Conditional.notModified(httpServletRequest, httpServletResponse, book.getId(), book.getUpdateTime())) {
+            return null;
+        }
+
+        return JSON.toJSONString(book);
+    }
     
+    //以下读取图书内容的接口都是异步的，在 contentExecutor 里读 minio，不占用 Tomcat 的工作线程
+    //从头开始读一本书时阅读数加一、热门榜记一次，都只改内存；查到图书之后才计数，不存在的 id 不会混进计数和榜单
+
     @GetMapping("/getBookContent")
-    public String getBookContent(Integer id) {    //获取某本图书的内容
+    public CompletableFuture<String> getBookContent(Integer id) {    //获取某本图书的内容
+        httpServletResponse.setCharacterEncoding("utf-8");
+        if (id == null) {
+            return CompletableFuture.completedFuture(JSON.toJSONString(Result.fail("id 不能为空")));
+        }
+
+        return bookContentUtil.async(() -> {
+            Book book = findBook(id);
+            countRead(book);
+            String s = bookContentUtil.getContent(book.getUrl());
+
+            return JSON.toJSONString(s);
+        });
+    }
+
+    @GetMapping("/getBookPage")
+    public CompletableFuture<String> getBookPage(Integer id, Long offset, Integer length, String charset) {   //按页获取图书内容，offset、charset 传上一页返回的 next、charset
+        httpServletResponse.setCharacterEncoding("utf-8");
+        if (id == null) {
+            return CompletableFuture.completedFuture(JSON.toJSONString(Result.fail("id 不能为空")));
+        }
+
+        return bookContentUtil.async(() -> {
+            Book book = findBook(id);
+            if (offset == null || offset == 0) {
+                countRead(book);
+            }
+            ContentPage page = bookContentUtil.readPage(book.getUrl(), charset,
+                    offset == null ? 0 : offset,
+                    length == null ? BookContentUtil.DEFAULT_PAGE_SIZE : length);
+
+            return JSON.toJSONString(page);
+        });
+    }
+
+    @GetMapping("/streamBookContent")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamBookContent(Integer id) {    //不经过 JSON，直接把图书内容写到响应流，支持 Range 断点续传
+        if (id == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        boolean fromStart = httpServletRequest.getHeader("Range") == null;     //断点续传的后续请求不算
+
+        return bookContentUtil.serveAsync(() -> {
+            Book book = findBook(id);
+            if (fromStart) {
+                countRead(book);
+            }
+            return book.getUrl();
+        });
+    }
+
+    //图书不存在时抛出 FileNotFoundException，由全局异常处理返回 404
+    private Book findBook(Integer id) throws FileNotFoundException {
         Book book = bookService.getById(id);
-        /* System.out.println(book.getUrl());*/
+        if (book == null) {
+            throw new FileNotFoundException("图书 " + id + " 不存在");
+        }
+        return book;
+    }
+
+    private void countRead(Book book) {
+        bookCounters.read(book.getId());
+        hotBooks.hit(book.getId());
+    }
+
+    @GetMapping("/getChapters")
+    public CompletableFuture<String> getChapters(Integer id) {     //图书目录，只有章节标题和字节范围
+        httpServletResponse.setCharacterEncoding("utf-8");
+        if (id == null) {
+            return CompletableFuture.completedFuture(JSON.toJSONString(Result.fail("id 不能为空")));
+        }
+
+        return bookContentUtil.async(() -> {
+            Book book = findBook(id);
+            List<Chapter> chapters = bookIndexer.getIndex(book).chapters();
+
+            return JSON.toJSONString(chapters);
+        });
+    }
+
+    @GetMapping("/getChapter")
+    public CompletableFuture<String> getChapter(Integer id, Integer chapter) {    //按目录直接打开某一章
+        httpServletResponse.setCharacterEncoding("utf-8");
+        if (id == null) {
+            return CompletableFuture.completedFuture(JSON.toJSONString(Result.fail("id 不能为空")));
+        }
+
+        return bookContentUtil.async(() -> {
+            Book book = findBook(id);
+            BookIndex index = bookIndexer.getIndex(book);
+            if (chapter == null || chapter < 0 || chapter >= index.chapterCount()) {
+                return JSON.toJSONString(Result.fail("章节不存在"));
+            }
+            Chapter c = index.chapter(chapter);
+            ContentPage page = bookContentUtil.readPage(book.getUrl(), index.getCharset(), c.getOffset(),
+                    (int) Math.min(c.getLength(), BookContentUtil.MAX_PAGE_SIZE),
+                    c.getLength() <= BookContentUtil.MAX_PAGE_SIZE);     //超长的章节剩下的部分用 getBookPage 接着读
+
+            return JSON.toJSONString(page);
+        });
+    }
+
+    @GetMapping("/getPageByNo")
+    public CompletableFuture<String> getPageByNo(Integer id, Integer page) {    //按页码跳页，页码从 0 开始
+        httpServletResponse.setCharacterEncoding("utf-8");
+        if (id == null) {
+            return CompletableFuture.completedFuture(JSON.toJSONString(Result.fail("id 不能为空")));
+        }
+
+        return bookContentUtil.async(() -> {
+            Book book = findBook(id);
+            BookIndex index = bookIndexer.getIndex(book);
+            if (page == null || page < 0 || page >= index.pageCount()) {
+                return JSON.toJSONString(Result.fail("页码超出范围"));
+            }
+            ContentPage contentPage = bookContentUtil.readPage(book.getUrl(), index.getCharset(), index.pageOffset(page),
+                    (int) Math.min(index.pageLength(page), BookContentUtil.MAX_PAGE_SIZE),
+                    index.pageLength(page) <= BookContentUtil.MAX_PAGE_SIZE);
+
+            return JSON.toJSONString(contentPage);
+        });
+    }
 
+    @GetMapping("/search")
+    public String search(String q, Integer limit) {     //在所有图书的正文里搜索，返回命中的片段和摘要
         httpServletResponse.setCharacterEncoding("utf-8");
-        String s = TxtToString.openFile(book.getUrl());
+        if (q == null || q.trim().isEmpty()) {
+            return JSON.toJSONString(Result.fail("请输入关键词"));
+        }
+        if (q.trim().length() < 2) {
+            return JSON.toJSONString(Result.fail("关键词至少两个字"));
+        }
+        List<SearchHit> hits = bookSearcher.search(q, limit == null ? BookSearcher.DEFAULT_LIMIT : limit);
+
+        return JSON.toJSONString(hits);
+    }
+
+    @GetMapping("/suggest")
+    public String suggest(String q, Integer limit) {     //按部分书名、作者、关键字联想，数据来自内存里的目录索引
+        httpServletResponse.setCharacterEncoding("utf-8");
+        List<Suggestion> suggestions = catalogIndex.suggest(q, limit == null ? CatalogIndex.DEFAULT_LIMIT : limit);
+
+        return JSON.toJSONString(suggestions);
+    }
+
+    @GetMapping("/hot")
+    public String hot(Integer limit) {     //最近一小时的热门图书，榜单在后台定时算好，这里只截取前 limit 名
+        int n = Math.min(limit == null || limit <= 0 ? HotBooks.DEFAULT_LIMIT : limit, HotBooks.TOP_K);
+
+        return JSON.toJSONString(hotBooks.top(n));
+    }
+
+    @GetMapping("/similar")
+    public String similar(@RequestParam String id, Integer limit) {     //详情页的相似图书，后台预先算好，这里只查表
+        int n = limit == null || limit <= 0 ? similarConfig.getTopN() : Math.min(limit, similarConfig.getTopN());
+
+        return JSON.toJSONString(similarBooks.similar(id, n));
+    }
+
+    @GetMapping("/counts")
+    public String counts(@RequestParam(required = false) List<String> ids) {    //评论数和阅读数，直接从内存里取；不传 ids 返回所有有计数的书
+        if (ids == null) {
+            return JSON.toJSONString(bookCounters.all());
+        }
+        if (ids.size() > MAX_FIND_IDS) {
+            return JSON.toJSONString(Result.fail("一次最多查询 " + MAX_FIND_IDS + " 本"));
+        }
+
+        return JSON.toJSONString(bookCounters.get(ids));
+    }
+
+    @GetMapping("/contentStats")
+    public String contentStats() {     //图书内容缓存的命中情况
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memory", contentCache.stats());
+        stats.put("disk", diskContentCache.stats());
+        stats.put("singleFlight", bookContentUtil.flightStats());
+        stats.put("search", bookSearcher.stats());
+        stats.put("catalog", catalogIndex.stats());
+        stats.put("counters", bookCounters.stats());
+        stats.put("hot", hotBooks.stats());
+        stats.put("similar", similarBooks.stats());
+
+        return JSON.toJSONString(stats);
+    }
 
+    @PostMapping("/buildIndex")
+    public String buildIndex() {     //给已有的图书补建索引，在后台执行
+        List<Book> books = bookService.list();
+        bookIndexer.indexAsync(books);
+        bookSearcher.indexAsync(books);
 
-        return JSON.toJSONString(s);
+        return "开始建立索引";
     }
 
 
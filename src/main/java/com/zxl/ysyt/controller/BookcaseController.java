@@ -1,17 +1,29 @@
 package com.zxl.ysyt.controller;
 
 import com.alibaba.fastjson.JSON;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.zxl.ysyt.common.lang.BookcaseMove;
+import com.zxl.ysyt.common.lang.ContentPage;
+import com.zxl.ysyt.common.lang.KeysetPage;
+import com.zxl.ysyt.common.lang.Result;
 import com.zxl.ysyt.pojo.BookCase;
 import com.zxl.ysyt.pojo.User;
 import com.zxl.ysyt.service.BookCaseService;
-import com.zxl.ysyt.util.TxtToString;
+import com.zxl.ysyt.util.BookContentUtil;
+import com.zxl.ysyt.util.BookcaseCache;
+import com.zxl.ysyt.util.Conditional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
+import java.io.FileNotFoundException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
@@ -22,32 +34,135 @@ import javax.servlet.http.HttpServletResponse;
 @RequestMapping("/bookcase")
 public class BookcaseController {
 
+    private static final int DEFAULT_SYNC_SIZE = 200;
+
+    private static final int MAX_SYNC_SIZE = 500;
+
+    //批量接口一次最多处理的条数
+    private static final int MAX_BATCH_SIZE = 500;
 
     @Autowired
     BookCaseService bookCaseService;
 
+    @Autowired
+    BookContentUtil bookContentUtil;
+
+    @Autowired
+    BookcaseCache bookcaseCache;
+
     @Resource
     private HttpServletResponse httpServletResponse;
 
+    @Resource
+    private HttpServletRequest httpServletRequest;
+
     @PostMapping("/findAll")
     public String findAll(@RequestBody User user){
 
-        List<BookCase> bcaselist = bookCaseService.list(new QueryWrapper<BookCase>()
-                .eq("uid", user.getUid())
-        );
+        List<BookCase> bcaselist = bookCaseService.listByUid(user.getUid());    //走书架缓存，冷缓存才查库
+
+
+        return JSON.toJSONString(bcaselist);
+
+    }
 
+    @GetMapping("/findAll")
+    public String findAllByUid(String uid) {    //findAll 的 GET 形式，校验值由缓存里的行数和最后修改时间算出来，书架没变就回 304
+        List<BookCase> bcaselist = bookCaseService.listByUid(uid);
+        long latest = -1;
+        for (BookCase bookCase : bcaselist) {
+            if (bookCase.getUpdateTime() != null) {
+                latest = Math.max(latest, bookCase.getUpdateTime().getTime());
+            }
+        }
+        Map<String, Object> version = new HashMap<>();
+        version.put("total", bcaselist.size());
+        version.put("latest", latest);
+        if (Conditional.notModified(httpServletRequest, httpServletResponse, "bookcase-" + uid, version)) {
+            return null;
+        }
 
         return JSON.toJSONString(bcaselist);
+    }
+
+    @GetMapping("/cacheStats")
+    public String cacheStats() {     //书架缓存的命中情况
+        return JSON.toJSONString(bookcaseCache.stats());
+    }
 
+    /**
+     * 书架增量同步，只返回上次同步之后新增、修改、删除（deleted=1）的记录，代价和改动量成正比
+     *
+     * @param uid   用户id
+     * @param since 上次返回的 next，首次同步不传
+     * @param size  每次最多返回几条，hasMore 为 true 时拿 next 接着拉
+     */
+    @GetMapping("/changes")
+    public String changes(String uid, String since, Integer size) {
+        int pageSize = Math.min(size == null || size <= 0 ? DEFAULT_SYNC_SIZE : size, MAX_SYNC_SIZE);
+        try {
+            KeysetPage<BookCase> page = bookCaseService.changes(uid, since == null || since.isEmpty() ? null : since, pageSize);
+
+            return JSON.toJSONString(page);
+        } catch (IllegalArgumentException e) {
+            return JSON.toJSONString(Result.fail(e.getMessage()));
+        }
     }
 
     @PostMapping("/addBookcase")
     public String addBookcase(@RequestBody BookCase bookCase){
+        bookCase.setId(null);       //这些列由服务端生成，不能让客户端带进来
+        bookCase.setCreateTime(null);
+        bookCase.setUpdateTime(null);
+        bookCase.setDeleted(null);
         boolean b = bookCaseService.save(bookCase);
 
         return JSON.toJSONString(b);
     }
 
+    @PostMapping("/addBatch")
+    public String addBatch(@RequestBody List<BookCase> bookCases){    //一次加入多本书，比如整套书或者导入书架，一条批量插入语句完成
+        if (bookCases == null || bookCases.isEmpty() || bookCases.size() > MAX_BATCH_SIZE) {
+            return JSON.toJSONString(Result.fail("一次最多添加 " + MAX_BATCH_SIZE + " 本"));
+        }
+        bookCases.forEach(bookCase -> {     //这些列由服务端生成，不能让客户端带进来
+            bookCase.setId(null);
+            bookCase.setCreateTime(null);
+            bookCase.setUpdateTime(null);
+            bookCase.setDeleted(null);
+        });
+        boolean b = bookCaseService.saveBatch(bookCases);
+
+        return JSON.toJSONString(b);
+    }
+
+    @PostMapping("/removeBatch")
+    public String removeBatch(@RequestBody List<Integer> ids){    //一次移除多本书
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            return JSON.toJSONString(Result.fail("一次最多移除 " + MAX_BATCH_SIZE + " 本"));
+        }
+        boolean b = bookCaseService.removeByIds(ids);
+
+        return JSON.toJSONString(b);
+    }
+
+    @PostMapping("/moveBatch")
+    public String moveBatch(@RequestBody BookcaseMove move){    //把几本书移到另一个用户的书架上，比如登录后合并游客书架
+        if (move.getIds() == null || move.getIds().isEmpty() || move.getIds().size() > MAX_BATCH_SIZE) {
+            return JSON.toJSONString(Result.fail("一次最多移动 " + MAX_BATCH_SIZE + " 本"));
+        }
+        boolean b = bookCaseService.move(move.getIds(), move.getFrom(), move.getTo());
+
+        return JSON.toJSONString(b);
+    }
+
+    @PostMapping("/removeBookcase")
+    public String removeBookcase(@RequestBody BookCase bookCase){    //逻辑删除，同时刷新 update_time，其他设备增量同步时能看到
+        boolean b = bookCaseService.removeById(bookCase.getId());
+
+        return JSON.toJSONString(b);
+    }
+
     @PostMapping("/findOne")
     public String findOne(@RequestBody BookCase bookCase){   //通过id 来查询一本书
 
@@ -57,17 +172,58 @@ public class BookcaseController {
         return JSON.toJSONString(aCase);
     }
 
+    @GetMapping("/findOne")
+    public String findOneById(Integer id) {     //findOne 的 GET 形式
+
+        BookCase aCase = bookCaseService.getById(id);
+        if (aCase != null && Conditional.notModified(httpServletRequest, httpServletResponse, aCase.getId(), aCase.getUpdateTime())) {
+            return null;
+        }
+
+        return JSON.toJSONString(aCase);
+    }
+
     @GetMapping("/getBookContent")
-    public String getBookContent(Integer id) {    //获取书架上某本书的内容
+    public CompletableFuture<String> getBookContent(Integer id) {    //获取书架上某本书的内容，异步读取
+        httpServletResponse.setCharacterEncoding("utf-8");
 
+        return bookContentUtil.async(() -> {
+            BookCase byId = bookCaseService.getById(id);
+            if (byId == null) {
+                throw new FileNotFoundException("书架记录 " + id + " 不存在");
+            }
+            String s = bookContentUtil.getContent(byId.getContent());
 
-        BookCase byId = bookCaseService.getById(id);
+            return JSON.toJSONString(s);
+        });
+    }
 
+    @GetMapping("/getBookPage")
+    public CompletableFuture<String> getBookPage(Integer id, Long offset, Integer length, String charset) {   //按页获取书架上某本书的内容，offset、charset 传上一页返回的
         httpServletResponse.setCharacterEncoding("utf-8");
-        String s = TxtToString.openFile(byId.getContent());
 
+        return bookContentUtil.async(() -> {
+            BookCase byId = bookCaseService.getById(id);
+            if (byId == null) {
+                throw new FileNotFoundException("书架记录 " + id + " 不存在");
+            }
+            ContentPage page = bookContentUtil.readPage(byId.getContent(), charset,
+                    offset == null ? 0 : offset,
+                    length == null ? BookContentUtil.DEFAULT_PAGE_SIZE : length);
+
+            return JSON.toJSONString(page);
+        });
+    }
 
-        return JSON.toJSONString(s);
+    @GetMapping("/streamBookContent")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamBookContent(Integer id) {    //直接把书架上某本书的内容写到响应流
+        return bookContentUtil.serveAsync(() -> {
+            BookCase byId = bookCaseService.getById(id);
+            if (byId == null) {
+                throw new FileNotFoundException("书架记录 " + id + " 不存在");
+            }
+            return byId.getContent();
+        });
     }
 
 
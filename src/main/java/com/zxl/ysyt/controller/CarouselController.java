@@ -2,17 +2,31 @@ package com.zxl.ysyt.controller;
 
 import com.alibaba.fastjson.JSON;
 import com.google.common.annotations.VisibleForTesting;
+import com.zxl.ysyt.common.lang.ContentPage;
+import com.zxl.ysyt.common.lang.KeysetPage;
+import com.zxl.ysyt.common.lang.Result;
 import com.zxl.ysyt.pojo.Book;
 import com.zxl.ysyt.pojo.Carousel;
 import com.zxl.ysyt.service.CarouselService;
-import com.zxl.ysyt.util.TxtToString;
+import com.zxl.ysyt.util.BookContentUtil;
+import com.zxl.ysyt.util.Conditional;
+import com.zxl.ysyt.util.Projection;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author 汉卿
@@ -22,13 +36,47 @@ import java.util.List;
 @RequestMapping("/carousel")
 public class CarouselController {
 
+    //fields 参数里允许的属性和对应的列
+    private static final Map<String, String> LIST_FIELDS = new LinkedHashMap<>();
+
+    static {
+        LIST_FIELDS.put("id", "id");
+        LIST_FIELDS.put("bname", "bname");
+        LIST_FIELDS.put("author", "author");
+        LIST_FIELDS.put("url", "url");
+        LIST_FIELDS.put("outline", "outline");
+        LIST_FIELDS.put("cover", "cover");
+    }
+
+    private static final String DEFAULT_LIST_FIELDS = "id,bname,author,cover";
+
+    private static final int DEFAULT_LIST_SIZE = 20;
+
+    private static final int MAX_LIST_SIZE = 100;
+
     @Autowired
     CarouselService carouselService;
 
+    @Autowired
+    BookContentUtil bookContentUtil;
+
 
     @Resource
     HttpServletResponse httpServletResponse;
 
+    @Resource
+    HttpServletRequest httpServletRequest;
+
+    @GetMapping("/findAllC")
+    public String findAllC() {      //findAllC 的 GET 形式，轮播图没有修改时间，用内容摘要做校验值
+        byte[] json = JSON.toJSONBytes(carouselService.list());
+        if (Conditional.notModified(httpServletRequest, httpServletResponse, "\"" + DigestUtils.md5DigestAsHex(json) + "\"", -1)) {
+            return null;
+        }
+
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
     @PostMapping("/findAllC")
     public String findAll() {
         List<Carousel> list = carouselService.list();
@@ -36,6 +84,20 @@ public class CarouselController {
         return JSON.toJSONString(list);
     }
 
+    @GetMapping("/list")
+    public String list(String after, Integer size, String fields) {    //按 id 分页，after 传上一页返回的 next，fields 指定只查哪些列
+        int pageSize = Math.min(size == null || size <= 0 ? DEFAULT_LIST_SIZE : size, MAX_LIST_SIZE);
+        try {
+            String[] columns = Projection.columns(fields, LIST_FIELDS, DEFAULT_LIST_FIELDS, "id");
+            KeysetPage<Carousel> page = carouselService.listPage(after == null || after.isEmpty() ? null : after,
+                    pageSize, columns);
+
+            return JSON.toJSONString(page);
+        } catch (IllegalArgumentException e) {
+            return JSON.toJSONString(Result.fail(e.getMessage()));
+        }
+    }
+
     @PostMapping("/findOne")
     public String findOne(@RequestBody Carousel carousel) {
         Carousel carousel1 = carouselService.getById(carousel.getId());
@@ -44,15 +106,49 @@ public class CarouselController {
     }
 
     @GetMapping("/getCarouselContent")
-    public String getCarouselContent(Integer id) {
+    public CompletableFuture<String> getCarouselContent(Integer id) {
+
+        httpServletResponse.setCharacterEncoding("utf-8");
 
-        Carousel carousel = carouselService.getById(id);
+        return bookContentUtil.async(() -> {
+            Carousel carousel = carouselService.getById(id);
+            if (carousel == null) {
+                throw new FileNotFoundException("轮播图 " + id + " 不存在");
+            }
+            String s = bookContentUtil.getContent(carousel.getUrl());
+
+            return JSON.toJSONString(s);
+        });
+    }
+
+    @GetMapping("/getCarouselPage")
+    public CompletableFuture<String> getCarouselPage(Integer id, Long offset, Integer length, String charset) {     //offset、charset 传上一页返回的
 
         httpServletResponse.setCharacterEncoding("utf-8");
 
-        String s = TxtToString.openFile(carousel.getUrl());
+        return bookContentUtil.async(() -> {
+            Carousel carousel = carouselService.getById(id);
+            if (carousel == null) {
+                throw new FileNotFoundException("轮播图 " + id + " 不存在");
+            }
+            ContentPage page = bookContentUtil.readPage(carousel.getUrl(), charset,
+                    offset == null ? 0 : offset,
+                    length == null ? BookContentUtil.DEFAULT_PAGE_SIZE : length);
+
+            return JSON.toJSONString(page);
+        });
+    }
+
+    @GetMapping("/streamCarouselContent")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamCarouselContent(Integer id) {
 
-        return JSON.toJSONString(s);
+        return bookContentUtil.serveAsync(() -> {
+            Carousel carousel = carouselService.getById(id);
+            if (carousel == null) {
+                throw new FileNotFoundException("轮播图 " + id + " 不存在");
+            }
+            return carousel.getUrl();
+        });
     }
 
 }
@@ -1,13 +1,29 @@
 package com.zxl.ysyt.controller;
 
+import com.alibaba.fastjson.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.zxl.ysyt.common.lang.KeysetPage;
+import com.zxl.ysyt.common.lang.Result;
+import com.zxl.ysyt.config.SensitiveConfig;
 import com.zxl.ysyt.pojo.Comment;
 import com.zxl.ysyt.service.CommentService;
+import com.zxl.ysyt.util.CommentFeedCache;
+import com.zxl.ysyt.util.CommentWriter;
+import com.zxl.ysyt.util.Conditional;
+import com.zxl.ysyt.util.SensitiveFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * @author 汉卿
  * @date 2021/4/17 20:02
@@ -16,16 +32,95 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/comm")
 public class CommentController {
 
+    private static final int MAX_CONTENT_LENGTH = 500;
+
+    private static final int MAX_FEED_SIZE = 100;
+
     @Autowired
     CommentService commentService;
 
+    @Autowired
+    CommentWriter commentWriter;
+
+    @Autowired
+    CommentFeedCache commentFeedCache;
+
+    @Autowired
+    SensitiveFilter sensitiveFilter;
+
+    @Autowired
+    SensitiveConfig sensitiveConfig;
+
+    @Resource
+    private HttpServletResponse httpServletResponse;
+
+    @Resource
+    private HttpServletRequest httpServletRequest;
+
 
     @PostMapping
-    public String addComm(@RequestBody Comment comment){
+    public String addComm(@RequestBody Comment comment){    //发表评论，放进写入队列后立即返回，后台批量写库
+
+        if (comment.getUid() == null || comment.getBid() == null
+                || comment.getContent() == null || comment.getContent().trim().isEmpty()) {
+            return JSON.toJSONString(Result.fail("uid、bid、content 不能为空"));
+        }
+        if (comment.getContent().length() > MAX_CONTENT_LENGTH) {
+            return JSON.toJSONString(Result.fail("评论最多 " + MAX_CONTENT_LENGTH + " 字"));
+        }
+        String content = sensitiveFilter.screen(comment.getContent(), sensitiveConfig.getCommentPolicy());
+        if (content == null) {
+            return JSON.toJSONString(Result.fail("评论包含敏感词，请修改后再发"));
+        }
+        comment.setContent(content);
+        commentWriter.post(comment);
+
+        return JSON.toJSONString(true);
+
+    }
 
+    /**
+     * 某本书的评论流，最新的在前
+     *
+     * @param bid   图书id
+     * @param after 上一页返回的 next，第一页不传
+     * @param size  每页条数，默认 20，最多 100
+     */
+    @GetMapping("/feed")
+    public String feed(String bid, String after, Integer size) {
+        if (bid == null) {
+            return JSON.toJSONString(Result.fail("bid 不能为空"));
+        }
+        int pageSize = Math.min(size == null || size <= 0 ? CommentFeedCache.PAGE_SIZE : size, MAX_FEED_SIZE);
+        try {
+            KeysetPage<Comment> page = commentService.feed(bid, after == null || after.isEmpty() ? null : after, pageSize);
+
+            return JSON.toJSONString(page);
+        } catch (IllegalArgumentException e) {
+            return JSON.toJSONString(Result.fail(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    public String stats() {     //写入队列、第一页缓存和敏感词库的情况
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writer", commentWriter.stats());
+        stats.put("feedCache", commentFeedCache.stats());
+        stats.put("sensitive", sensitiveFilter.stats());
+
+        return JSON.toJSONString(stats);
+    }
 
-        return null;
+    @GetMapping("/findByBook")
+    public String findByBook(String bid) {    //某本书的评论，按时间先后；评论没有变化时回 304
+        QueryWrapper<Comment> byBook = new QueryWrapper<Comment>().eq("bid", bid);
+        Map<String, Object> version = commentService.getMap(new QueryWrapper<Comment>()
+                .select(Conditional.LIST_VERSION_COLUMNS).eq("bid", bid));
+        if (Conditional.notModified(httpServletRequest, httpServletResponse, "comment-" + bid, version)) {
+            return null;
+        }
 
+        return JSON.toJSONString(commentService.list(byBook.orderByAsc("create_time", "id")));
     }
 
 
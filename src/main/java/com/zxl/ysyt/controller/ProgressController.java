@@ -0,0 +1,47 @@
+package com.zxl.ysyt.controller;
+
+import com.alibaba.fastjson.JSON;
+import com.zxl.ysyt.common.lang.Result;
+import com.zxl.ysyt.pojo.ReadingProgress;
+import com.zxl.ysyt.util.ProgressTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:00
+ */
+@RestController
+@RequestMapping("/progress")      //阅读进度接口
+public class ProgressController {
+
+    @Autowired
+    ProgressTracker progressTracker;
+
+    @PostMapping("/report")
+    public String report(@RequestBody ReadingProgress progress) {     //阅读器定时上报进度，只写内存，后台批量写库
+        if (progress.getUid() == null || progress.getBid() == null
+                || progress.getPosition() == null || progress.getPosition() < 0) {
+            return JSON.toJSONString(Result.fail("uid、bid、position 不能为空"));
+        }
+        ReadingProgress saved = progressTracker.report(progress.getUid(), progress.getBid(),
+                progress.getPosition(), progress.getCharset(), progress.getChapter());
+
+        return JSON.toJSONString(saved);
+    }
+
+    @GetMapping("/get")
+    public String get(String uid, String bid) {     //打开一本书时取上次读到的位置
+        if (uid == null || bid == null) {
+            return JSON.toJSONString(Result.fail("uid、bid 不能为空"));
+        }
+
+        return JSON.toJSONString(progressTracker.get(uid, bid));
+    }
+
+    @GetMapping("/stats")
+    public String stats() {     //上报次数和实际写库行数
+        return JSON.toJSONString(progressTracker.stats());
+    }
+
+}
@@ -5,9 +5,14 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.zxl.ysyt.pojo.User;
 import com.zxl.ysyt.service.UserService;
+import com.zxl.ysyt.util.Conditional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 
 /**
  * @author 汉卿
@@ -21,6 +26,12 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Resource
+    private HttpServletResponse httpServletResponse;
+
+    @Resource
+    private HttpServletRequest httpServletRequest;
+
     @PostMapping("/updateMyInfo")     //修改个人信息页的接口
     public String updateMyInfo(@RequestBody User user) {
 
@@ -51,6 +62,21 @@ public class UserController {
 
     }
 
+    @GetMapping("/info")
+    public String info(String uid) {     //个人信息页的 GET 接口，不返回密码；信息没改过时回 304
+
+        User one = userService.getOne(Wrappers.<User>lambdaQuery().eq(User::getUid, uid), false);
+        if (one == null) {
+            return JSON.toJSONString(null);
+        }
+        if (Conditional.notModified(httpServletRequest, httpServletResponse, one.getUid(), one.getUpdateTime())) {
+            return null;
+        }
+        one.setPassword(null);
+
+        return JSON.toJSONString(one);
+    }
+
     @PostMapping("/confirm2")
     public String confirmSecret2(@RequestBody User user) {     //验证用户名和密码是否匹配
         User one = userService.getOne(new QueryWrapper<User>()
@@ -1,8 +1,12 @@
 package com.zxl.ysyt.controller;
 
 import com.sun.org.apache.bcel.internal.generic.RET;
+import com.zxl.ysyt.config.SensitiveConfig;
 import com.zxl.ysyt.util.MinioConstant;
 import com.zxl.ysyt.util.MinioUtil;
+import com.zxl.ysyt.util.SensitiveFilter;
+import com.zxl.ysyt.util.TranscodeJob;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,20 +20,43 @@ import java.util.UUID;
  * @author 汉卿
  * @date 2021/4/18 15:47
  */
+@Slf4j
 @RestController
 public class WriteTxtController {
 
     @Autowired
     private MinioUtil minioUtil;
 
+    @Autowired
+    private TranscodeJob transcodeJob;
+
+    @Autowired
+    private SensitiveFilter sensitiveFilter;
+
+    @Autowired
+    private SensitiveConfig sensitiveConfig;
+
     @PostMapping("/transToTxt")
     public String transToTxt(String str) {
         if (StringUtils.isNotBlank(str)) {
+            //按配置打码，或者整段拒绝（和其他失败一样返回 null）
+            str = sensitiveFilter.screen(str, sensitiveConfig.getTextPolicy());
+            if (str == null) {
+                return null;
+            }
             try{
                 InputStream inputStream = new ByteArrayInputStream(str.getBytes("GB2312"));
                 String txtName = UUID.randomUUID().toString().replace("-", "") + ".txt";
                 minioUtil.putObject(MinioConstant.BUCKET_NAME_Txt, txtName, inputStream, "text/*");
                 inputStream.close();
+
+                //同时存好 UTF-8 副本和 gzip 副本，读取时直接按字节输出，不用再转码、压缩
+                //副本只是优化，失败了原文照样可用，后台的 TranscodeJob 会补上
+                try {
+                    transcodeJob.storeVariants(txtName, str);
+                } catch (Exception e) {
+                    log.warn("{} 的副本生成失败，等待后台任务补齐", txtName, e);
+                }
                 return minioUtil.getObjectUrl(MinioConstant.BUCKET_NAME_Txt, txtName);
             }catch(Exception e){
                 e.printStackTrace();
@@ -2,8 +2,14 @@ package com.zxl.ysyt.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zxl.ysyt.pojo.BookCase;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 /**
  * @author 汉卿
  * @date 2021/4/17 20:29
@@ -11,4 +17,25 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface BookCaseMapper extends BaseMapper<BookCase> {
 
+    /**
+     * 某个用户在 (since, afterId) 之后有改动的书架记录，包括已经逻辑删除的；since 为 null 时只查现有的
+     */
+    List<BookCase> selectChangedSince(@Param("uid") String uid, @Param("since") Date since,
+                                      @Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * id 大于 afterId 的现有书架记录，所有用户的，只查 id、uid、content
+     */
+    List<BookCase> selectShelvedAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 所有用户在 (since, afterId) 之后有改动的书架记录，包括已经逻辑删除的
+     */
+    List<BookCase> selectAllChangedSince(@Param("since") Date since, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 逻辑删除并把 update_time 设为 time
+     */
+    int logicDeleteByIds(@Param("ids") Collection<? extends Serializable> ids, @Param("time") Date time);
+
 }
@@ -0,0 +1,27 @@
+package com.zxl.ysyt.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zxl.ysyt.pojo.BookCounter;
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:50
+ */
+@Repository
+public interface BookCounterMapper extends BaseMapper<BookCounter> {
+
+    /**
+     * 一条多值 insert 把一批增量加到计数上，没有的行新建
+     */
+    int addBatch(@Param("list") List<BookCounter> list);
+
+    /**
+     * 计数表还是空的时候，按现有评论算出初始的评论数
+     */
+    int seedCommentCounts();
+
+}
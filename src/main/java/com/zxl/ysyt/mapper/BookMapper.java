@@ -2,8 +2,14 @@ package com.zxl.ysyt.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zxl.ysyt.pojo.Book;
+import org.apache.ibatis.annotations.Param;
 import org.springframework.stereotype.Repository;
 
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
 /**
  * @author 汉卿
  * @date 2021/4/8 16:58
@@ -11,5 +17,24 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface BookMapper extends BaseMapper<Book> {
 
+    /**
+     * 在 (since, afterId) 之后有改动的图书，包括已经逻辑删除的，只查目录索引和相似推荐需要的字段
+     */
+    List<Book> selectChangedSince(@Param("since") Date since, @Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * id 大于 afterId 的图书，包括已经逻辑删除的，只查目录索引和相似推荐需要的字段
+     */
+    List<Book> selectCatalogAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 逻辑删除并把 update_time 设为 time（毫秒精度，和实体里的 Date 一致）
+     */
+    int logicDeleteById(@Param("id") Serializable id, @Param("time") Date time);
+
+    /**
+     * 图书的创建时间，带微秒；实体里的 Date 只精确到毫秒，按创建时间翻页的游标要用这个
+     */
+    Timestamp selectCreateTime(@Param("id") String id);
 
 }
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zxl.ysyt.pojo.Comment;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 
 
 /**
@@ -13,5 +14,9 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CommentMapper extends BaseMapper<Comment> {
 
+    /**
+     * 一条多值 insert 写入一批评论，创建时间用评论自己带的（发表的时刻），不经过自动填充；自增 id 回填到每条评论上
+     */
+    int insertBatch(List<Comment> list);
 
 }
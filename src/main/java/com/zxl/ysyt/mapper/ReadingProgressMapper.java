@@ -0,0 +1,22 @@
+package com.zxl.ysyt.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zxl.ysyt.pojo.ReadingProgress;
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:00
+ */
+@Repository
+public interface ReadingProgressMapper extends BaseMapper<ReadingProgress> {
+
+    /**
+     * 一条多值 insert 写入一批进度，已有的行只在这次的时间更新时才覆盖
+     */
+    int upsertBatch(@Param("list") List<ReadingProgress> list);
+
+}
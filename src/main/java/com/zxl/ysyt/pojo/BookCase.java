@@ -17,7 +17,7 @@ import java.util.Date;
 public class BookCase {
 
 
-    @TableId(type = IdType.INPUT)
+    @TableId(type = IdType.AUTO)
     private Integer id;
 
     private String uid;
@@ -0,0 +1,24 @@
+package com.zxl.ysyt.pojo;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:50
+ *
+ * 每本书的评论数和阅读数；写库时 comments、reads 是这段时间的增量
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCounter {
+
+    private String bid;        //图书id
+    private Long comments;     //评论数
+    @TableField("`reads`")     //reads 是 MySQL 的保留字
+    private Long reads;        //阅读数
+
+}
@@ -0,0 +1,28 @@
+package com.zxl.ysyt.pojo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:00
+ *
+ * 用户在某本书里的阅读进度，(uid, bid) 唯一
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingProgress {
+
+    private String uid;        //用户id
+    private String bid;        //图书id
+    private Long position;     //读到的字节位置，和 getBookPage 的 offset 一致
+    private String charset;    //position 所在那份文本的编码，即 getBookPage 返回的 charset，恢复进度时和 position 一起传回
+    private Integer chapter;   //读到第几章，可以不传
+
+    private Date updateTime;   //客户端上报的时间，由服务端填写
+
+}
@@ -1,13 +1,42 @@
 package com.zxl.ysyt.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.pojo.BookCase;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @author 汉卿
  * @date 2021/4/8 17:37
  */
 public interface BookCaseService extends IService<BookCase> {
 
+    /**
+     * 某个用户的整个书架，先查缓存，没有才查库
+     *
+     * @return 不可修改的列表
+     */
+    List<BookCase> listByUid(String uid);
+
+    /**
+     * 书架增量同步：返回上次同步之后新增、修改和逻辑删除（deleted=1）的记录
+     *
+     * @param uid   用户id
+     * @param since 上次返回的同步令牌，首次同步传 null，此时只返回现有的记录
+     * @param size  最多返回几条，hasMore 为 true 时拿 next 接着同步
+     * @return next 是下次同步要带上的令牌
+     * @throws IllegalArgumentException 令牌格式不对
+     */
+    KeysetPage<BookCase> changes(String uid, String since, int size);
+
+    /**
+     * 把 fromUid 书架上的几条记录移到 toUid 的书架上，目标书架上已经有的同一本书不重复添加
+     * 原记录逻辑删除、目标书架批量新增，两边的增量同步都能看到这次移动
+     *
+     * @return 有记录被移动返回 true
+     */
+    boolean move(Collection<Integer> ids, String fromUid, String toUid);
 
 }
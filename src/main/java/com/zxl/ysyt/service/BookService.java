@@ -1,6 +1,7 @@
 package com.zxl.ysyt.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.pojo.Book;
 
 /**
@@ -9,5 +10,15 @@ import com.zxl.ysyt.pojo.Book;
  */
 public interface BookService extends IService<Book> {
 
+    /**
+     * 按键翻页查询图书，不用 OFFSET，翻到多深都只扫描一页的数据
+     *
+     * @param after        上一页返回的游标，第一页传 null
+     * @param size         每页条数
+     * @param columns      要查的列，必须包含 id，按创建时间排序时还要包含 create_time
+     * @param byCreateTime true 按创建时间从新到旧，false 按 id 从小到大
+     * @return
+     */
+    KeysetPage<Book> listPage(String after, int size, String[] columns, boolean byCreateTime);
 
 }
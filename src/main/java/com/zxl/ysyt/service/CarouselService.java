@@ -1,6 +1,7 @@
 package com.zxl.ysyt.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.pojo.Carousel;
 
 /**
@@ -9,5 +10,14 @@ import com.zxl.ysyt.pojo.Carousel;
  */
 public interface CarouselService extends IService<Carousel> {
 
+    /**
+     * 按 id 翻页查询轮播图
+     *
+     * @param after   上一页返回的游标（最后一条的 id），第一页传 null
+     * @param size    每页条数
+     * @param columns 要查的列，必须包含 id
+     * @return
+     */
+    KeysetPage<Carousel> listPage(String after, int size, String[] columns);
 
 }
@@ -1,6 +1,7 @@
 package com.zxl.ysyt.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.pojo.Comment;
 
 /**
@@ -9,4 +10,15 @@ import com.zxl.ysyt.pojo.Comment;
  */
 public interface CommentService extends IService<Comment> {
 
+    /**
+     * 某本书的评论流，最新的在前，按 (create_time, id) 往后翻，走 (bid, create_time, id) 索引
+     * 第一页优先从热门评论缓存里取
+     *
+     * @param bid   图书id
+     * @param after 上一页返回的 next，第一页传 null
+     * @param size  每页条数
+     * @throws IllegalArgumentException 游标格式不对
+     */
+    KeysetPage<Comment> feed(String bid, String after, int size);
+
 }
@@ -1,11 +1,29 @@
 package com.zxl.ysyt.service.imp;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.mapper.BookCaseMapper;
 import com.zxl.ysyt.pojo.BookCase;
 import com.zxl.ysyt.service.BookCaseService;
-import com.zxl.ysyt.service.BookService;
+import com.zxl.ysyt.util.BookcaseCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * @author 汉卿
@@ -14,4 +32,153 @@ import org.springframework.stereotype.Service;
 @Service
 public class BookCaseServiceImpl extends ServiceImpl<BookCaseMapper, BookCase> implements BookCaseService {
 
+    //晚提交的事务可能带着更早的 update_time，令牌不超过 “当前时间 - OVERLAP_MILLIS”，这段时间里的改动下次会再发一遍
+    private static final long OVERLAP_MILLIS = 5000;
+
+    @Autowired
+    private BookcaseCache bookcaseCache;
+
+    @Override
+    public List<BookCase> listByUid(String uid) {
+        List<BookCase> shelf = bookcaseCache.get(uid);
+        if (shelf != null) {
+            return shelf;
+        }
+        long stamp = bookcaseCache.stamp();
+        return bookcaseCache.put(uid, list(new QueryWrapper<BookCase>().eq("uid", uid)), stamp);
+    }
+
+    @Override
+    public boolean save(BookCase entity) {
+        if (!super.save(entity)) {
+            return false;
+        }
+        if (entity.getDeleted() == null) {
+            entity.setDeleted(0);      //和查库得到的记录保持一致
+        }
+        bookcaseCache.add(entity);
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveBatch(Collection<BookCase> entityList, int batchSize) {
+        if (!super.saveBatch(entityList, batchSize)) {
+            return false;
+        }
+        for (BookCase entity : entityList) {
+            if (entity.getDeleted() == null) {
+                entity.setDeleted(0);
+            }
+            bookcaseCache.add(entity);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean updateById(BookCase entity) {
+        boolean updated = super.updateById(entity);
+        bookcaseCache.invalidate(entity.getUid());
+        return updated;
+    }
+
+    @Override
+    public KeysetPage<BookCase> changes(String uid, String since, int size) {
+        Date time = null;
+        long afterId = 0;
+        if (since != null) {
+            int sep = since.indexOf('_');
+            if (sep < 0) {
+                throw new IllegalArgumentException("无效的同步令牌：" + since);
+            }
+            time = new Date(Long.parseLong(since.substring(0, sep)));
+            afterId = Long.parseLong(since.substring(sep + 1));
+        }
+
+        List<BookCase> rows = baseMapper.selectChangedSince(uid, time, afterId, size + 1);
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = new ArrayList<>(rows.subList(0, size));
+        }
+
+        //令牌指向最后一条记录；已经同步到最新时退回到 OVERLAP_MILLIS 之前
+        long nextTime = time == null ? 0 : time.getTime();
+        long nextId = afterId;
+        if (!rows.isEmpty()) {
+            BookCase last = rows.get(rows.size() - 1);
+            nextTime = last.getUpdateTime() == null ? 0 : last.getUpdateTime().getTime();
+            nextId = last.getId();
+        }
+        long safe = System.currentTimeMillis() - OVERLAP_MILLIS;
+        if (!hasMore && nextTime > safe) {
+            nextTime = safe;
+            nextId = 0;
+        }
+
+        KeysetPage<BookCase> page = KeysetPage.of(rows, nextTime + "_" + nextId);
+        page.setHasMore(hasMore);
+        return page;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean move(Collection<Integer> ids, String fromUid, String toUid) {
+        if (ids == null || ids.isEmpty() || Objects.equals(fromUid, toUid)) {
+            return false;
+        }
+        List<BookCase> rows = list(new QueryWrapper<BookCase>().eq("uid", fromUid).in("id", ids));
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Set<String> existing = new HashSet<>();
+        for (BookCase bookCase : listByUid(toUid)) {
+            existing.add(bookCase.getContent());
+        }
+        List<Integer> removed = new ArrayList<>(rows.size());
+        List<BookCase> copies = new ArrayList<>(rows.size());
+        for (BookCase row : rows) {
+            removed.add(row.getId());
+            if (existing.add(row.getContent())) {
+                copies.add(new BookCase(null, toUid, row.getContent(), row.getCover(), row.getDescription(), null, null, null));
+            }
+        }
+        removeByIds(removed);
+        if (!copies.isEmpty()) {
+            saveBatch(copies);
+        }
+        //上面边写库边改了缓存，事务回滚的话缓存就不对了，结束后两边都作废重新加载
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                bookcaseCache.invalidate(fromUid);
+                bookcaseCache.invalidate(toUid);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        return removeByIds(Collections.singletonList(id));
+    }
+
+    @Override
+    public boolean removeByIds(Collection<? extends Serializable> idList) {
+        if (idList == null || idList.isEmpty()) {
+            return false;
+        }
+        //先查出是谁的书架，删除后才能更新对应的缓存
+        List<BookCase> owners = list(new QueryWrapper<BookCase>().select("id", "uid").in("id", idList));
+        if (owners.isEmpty()) {
+            return false;
+        }
+        boolean removed = baseMapper.logicDeleteByIds(idList, new Date()) > 0;
+        Map<String, List<Integer>> byUser = new HashMap<>();
+        for (BookCase owner : owners) {
+            byUser.computeIfAbsent(owner.getUid(), k -> new ArrayList<>()).add(owner.getId());
+        }
+        byUser.forEach(bookcaseCache::remove);
+        return removed;
+    }
+
 }
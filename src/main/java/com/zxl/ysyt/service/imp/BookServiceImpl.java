@@ -1,16 +1,171 @@
 package com.zxl.ysyt.service.imp;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zxl.ysyt.common.event.BookChangedEvent;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.mapper.BookMapper;
 import com.zxl.ysyt.pojo.Book;
 import com.zxl.ysyt.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author 汉卿
  * @date 2021/4/8 19:06
+ *
+ * 所有写操作成功后都发布 BookChangedEvent，图书目录快照等缓存据此失效
+ * 注意 lambdaUpdate()/update() 链式写法直接调用 mapper，不经过这里，改图书请用下面这些方法
  */
 @Service
 public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements BookService {
 
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Override
+    public boolean save(Book entity) {
+        return changed(super.save(entity), ids(Collections.singletonList(entity)));
+    }
+
+    @Override
+    public boolean saveBatch(Collection<Book> entityList, int batchSize) {
+        return changed(super.saveBatch(entityList, batchSize), ids(entityList));
+    }
+
+    @Override
+    public boolean saveOrUpdate(Book entity) {
+        return changed(super.saveOrUpdate(entity), ids(Collections.singletonList(entity)));
+    }
+
+    @Override
+    public boolean saveOrUpdateBatch(Collection<Book> entityList, int batchSize) {
+        return changed(super.saveOrUpdateBatch(entityList, batchSize), ids(entityList));
+    }
+
+    @Override
+    public boolean updateById(Book entity) {
+        return changed(super.updateById(entity), ids(Collections.singletonList(entity)));
+    }
+
+    @Override
+    public boolean update(Book entity, Wrapper<Book> updateWrapper) {
+        return changed(super.update(entity, updateWrapper), null);
+    }
+
+    @Override
+    public boolean updateBatchById(Collection<Book> entityList, int batchSize) {
+        return changed(super.updateBatchById(entityList, batchSize), ids(entityList));
+    }
+
+    //默认的逻辑删除不会更新 update_time，按 update_time 增量同步的目录索引就看不到这次删除
+    @Override
+    public boolean removeById(Serializable id) {
+        return changed(baseMapper.logicDeleteById(id, new Date()) > 0, Collections.singletonList(String.valueOf(id)));
+    }
+
+    @Override
+    public boolean removeByIds(Collection<? extends Serializable> idList) {
+        List<String> ids = new ArrayList<>(idList.size());
+        for (Serializable id : idList) {
+            ids.add(String.valueOf(id));
+        }
+        return changed(super.removeByIds(idList), ids);
+    }
+
+    @Override
+    public boolean removeByMap(Map<String, Object> columnMap) {
+        return changed(super.removeByMap(columnMap), null);
+    }
+
+    @Override
+    public boolean remove(Wrapper<Book> queryWrapper) {
+        return changed(super.remove(queryWrapper), null);
+    }
+
+    @Override
+    public KeysetPage<Book> listPage(String after, int size, String[] columns, boolean byCreateTime) {
+        QueryWrapper<Book> query = new QueryWrapper<Book>().select(columns);
+        if (byCreateTime) {
+            //游标是 “创建时间微秒数_id”，创建时间相同的按 id 继续往后翻，需要 (create_time, id) 索引
+            //create_time 为空的排在最后，游标退化成 “_id”，只按 id 往后翻
+            if (after != null) {
+                int sep = after.indexOf('_');
+                if (sep < 0) {
+                    throw new IllegalArgumentException("无效的游标：" + after);
+                }
+                long id = Long.parseLong(after.substring(sep + 1));
+                if (sep == 0) {
+                    query.isNull("create_time").lt("id", id);
+                } else {
+                    Timestamp time = fromMicros(Long.parseLong(after.substring(0, sep)));
+                    query.and(w -> w.lt("create_time", time)
+                            .or(o -> o.eq("create_time", time).lt("id", id))
+                            .or(o -> o.isNull("create_time")));
+                }
+            }
+            query.orderByDesc("create_time", "id");
+        } else {
+            if (after != null) {
+                query.gt("id", Long.parseLong(after));
+            }
+            query.orderByAsc("id");
+        }
+        query.last("limit " + (size + 1));     //多查一条，用来判断还有没有下一页
+
+        List<Book> rows = list(query);
+        if (rows.size() <= size) {
+            return KeysetPage.of(rows, null);
+        }
+        rows = rows.subList(0, size);
+        Book last = rows.get(size - 1);
+        String next = byCreateTime ? createTimeCursor(last.getId()) : last.getId();
+        return KeysetPage.of(new ArrayList<>(rows), next);
+    }
+
+    //实体里的创建时间只有毫秒，同一毫秒内的几行会被跳过，所以回库取带微秒的原值
+    private String createTimeCursor(String id) {
+        Timestamp time = baseMapper.selectCreateTime(id);
+        if (time == null) {
+            return "_" + id;
+        }
+        long micros = Math.floorDiv(time.getTime(), 1000L) * 1_000_000L + time.getNanos() / 1000;
+        return micros + "_" + id;
+    }
+
+    private static Timestamp fromMicros(long micros) {
+        Timestamp time = new Timestamp(Math.floorDiv(micros, 1_000_000L) * 1000L);
+        time.setNanos((int) Math.floorMod(micros, 1_000_000L) * 1000);
+        return time;
+    }
+
+    private boolean changed(boolean result, Collection<String> ids) {
+        if (result) {
+            publisher.publishEvent(new BookChangedEvent(this, ids));
+        }
+        return result;
+    }
+
+    //写成功后实体里已经回填了自增 id；id 缺失说明不知道改的是哪本，按批量改动处理
+    private static Collection<String> ids(Collection<Book> books) {
+        List<String> ids = new ArrayList<>(books.size());
+        for (Book book : books) {
+            if (book.getId() == null) {
+                return null;
+            }
+            ids.add(book.getId());
+        }
+        return ids;
+    }
 }
@@ -1,14 +1,16 @@
 package com.zxl.ysyt.service.imp;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.zxl.ysyt.mapper.BookMapper;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.mapper.CarouselMapper;
-import com.zxl.ysyt.pojo.Book;
 import com.zxl.ysyt.pojo.Carousel;
-import com.zxl.ysyt.service.BookService;
 import com.zxl.ysyt.service.CarouselService;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author 汉卿
  * @date 2021/4/8 19:06
@@ -16,4 +18,19 @@ import org.springframework.stereotype.Service;
 @Service
 public class CarouselServiceImpl extends ServiceImpl<CarouselMapper, Carousel> implements CarouselService {
 
+    @Override
+    public KeysetPage<Carousel> listPage(String after, int size, String[] columns) {
+        QueryWrapper<Carousel> query = new QueryWrapper<Carousel>().select(columns);
+        if (after != null) {
+            query.gt("id", Long.parseLong(after));
+        }
+        query.orderByAsc("id").last("limit " + (size + 1));
+
+        List<Carousel> rows = list(query);
+        if (rows.size() <= size) {
+            return KeysetPage.of(rows, null);
+        }
+        rows = new ArrayList<>(rows.subList(0, size));
+        return KeysetPage.of(rows, String.valueOf(rows.get(size - 1).getId()));
+    }
 }
@@ -1,11 +1,19 @@
 package com.zxl.ysyt.service.imp;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zxl.ysyt.common.lang.KeysetPage;
 import com.zxl.ysyt.mapper.CommentMapper;
 import com.zxl.ysyt.pojo.Comment;
 import com.zxl.ysyt.service.CommentService;
+import com.zxl.ysyt.util.CommentFeedCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
 /**
  * @author 汉卿
  * @date 2021/4/17 20:10
@@ -13,5 +21,43 @@ import org.springframework.stereotype.Service;
 @Service
 public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> implements CommentService {
 
+    @Autowired
+    private CommentFeedCache commentFeedCache;
+
+    @Override
+    public KeysetPage<Comment> feed(String bid, String after, int size) {
+        List<Comment> rows;
+        if (after == null && size <= CommentFeedCache.PAGE_SIZE) {
+            rows = commentFeedCache.get(bid);
+            if (rows == null) {
+                long stamp = commentFeedCache.stamp();
+                rows = commentFeedCache.put(bid, newest(bid, null, CommentFeedCache.PAGE_SIZE + 1), stamp);
+            }
+        } else {
+            rows = newest(bid, after, size + 1);
+        }
+
+        if (rows.size() <= size) {
+            return KeysetPage.of(rows, null);
+        }
+        List<Comment> page = new ArrayList<>(rows.subList(0, size));
+        Comment last = page.get(size - 1);
+        return KeysetPage.of(page, last.getCreateTime().getTime() + "_" + last.getId());
+    }
+
+    //游标是 “创建时间毫秒数_id”
+    private List<Comment> newest(String bid, String after, int limit) {
+        QueryWrapper<Comment> query = new QueryWrapper<Comment>().eq("bid", bid);
+        if (after != null) {
+            int sep = after.indexOf('_');
+            if (sep < 0) {
+                throw new IllegalArgumentException("无效的游标：" + after);
+            }
+            Date time = new Date(Long.parseLong(after.substring(0, sep)));
+            long id = Long.parseLong(after.substring(sep + 1));
+            query.and(w -> w.lt("create_time", time).or(o -> o.eq("create_time", time).lt("id", id)));
+        }
+        return list(query.orderByDesc("create_time", "id").last("limit " + limit));
+    }
 
 }
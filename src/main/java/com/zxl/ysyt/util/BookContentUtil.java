@@ -0,0 +1,639 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.exception.ContentFetchException;
+import com.zxl.ysyt.common.lang.ContentPage;
+import com.zxl.ysyt.config.ContentConfig;
+import io.minio.ErrorCode;
+import io.minio.ObjectStat;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 10:20
+ *
+ * 图书内容的分页读取和流式输出，不再把整本书读进内存
+ */
+@Component
+public class BookContentUtil {
+
+    public static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+
+    public static final int MAX_PAGE_SIZE = 256 * 1024;
+
+    //至少能放下几个完整的字符（UTF-8 一个字最多 4 字节），页尾回退到字符边界后 next 一定往前走
+    public static final int MIN_PAGE_SIZE = 16;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    //对象元数据（大小、ETag）短时间缓存，避免每次按范围读取前都 stat 一次
+    private static final long STAT_TTL_MILLIS = 30 * 1000L;
+
+    private static final int STAT_CACHE_LIMIT = 10000;
+
+    @Autowired
+    private MinioUtil minioUtil;
+
+    @Autowired
+    private ContentCache contentCache;
+
+    @Autowired
+    private DiskContentCache diskContentCache;
+
+    @Autowired
+    private ContentConfig contentConfig;
+
+    @Resource(name = "contentExecutor")
+    private Executor contentExecutor;
+
+    private final Map<ObjectLocation, CachedStat> stats = new ConcurrentHashMap<>();
+
+    //同一本书同时未命中时只下载一次，其他请求等结果
+    private final SingleFlight<String, String> contentFlight = new SingleFlight<>();
+
+    private final SingleFlight<ObjectLocation, CachedStat> statFlight = new SingleFlight<>();
+
+    /**
+     * 读取一页内容
+     * 页尾会回退到最后一个换行，没有换行就回退到按编码算出的最后一个完整字符之后，保证不会把一个汉字切成两半，
+     * 所以 next 总是落在字符边界上，客户端翻页时把 next 作为下一次的 offset 即可
+     *
+     * @param url    文件服务器地址
+     * @param offset 起始字节
+     * @param length 期望读取的字节数，会被限制在 MIN_PAGE_SIZE 和 MAX_PAGE_SIZE 之间
+     * @return
+     * @throws IOException
+     */
+    public ContentPage readPage(String url, long offset, int length) throws IOException {
+        return readPage(url, null, offset, length, false);
+    }
+
+    /**
+     * 同上，offset 是之前某一页按 charset 那份文本算出来的位置，就继续读那一份，不会因为中途生成了副本而错位
+     *
+     * @param charset 上一页返回的 charset，第一页或者不知道时传 null，按当前最合适的一份读
+     */
+    public ContentPage readPage(String url, String charset, long offset, int length) throws IOException {
+        return readPage(url, charset, offset, length, false);
+    }
+
+    /**
+     * 同上，exactEnd 为 true 表示 offset + length 本身就是字符边界（索引里的下一页、下一章起点），
+     * 页尾不再回退到换行，按页码跳页时两页之间不会漏掉内容；按索引读取时 charset 传 BookIndex.getCharset()
+     */
+    public ContentPage readPage(String url, String charset, long offset, int length, boolean exactEnd) throws IOException {
+        if (offset < 0) {
+            offset = 0;
+        }
+        if (length <= 0) {
+            length = DEFAULT_PAGE_SIZE;
+        }
+        int requested = length;
+        length = Math.max(Math.min(length, MAX_PAGE_SIZE), MIN_PAGE_SIZE);
+
+        ContentSource source = resolve(url, charset);
+        long size = source.size();
+        if (offset >= size) {
+            return toPage(new byte[0], 0, size, true, source.getCharset());
+        }
+        boolean exact = exactEnd && requested == length && offset + length <= size;
+        int n = (int) Math.min(length, size - offset);
+        byte[] buf = new byte[n];
+        FileChannel channel = openLocal(source);
+        if (channel != null) {
+            try (FileChannel c = channel) {
+                n = readFully(c, ByteBuffer.wrap(buf), offset);
+            }
+        } else {
+            n = readRange(source.getLocation(), offset, buf);
+        }
+        boolean eof = offset + n >= size;
+        return toPage(buf, n, offset, eof, exact && n == length, source.getCharset());
+    }
+
+    /**
+     * 读取整本书解码后的文本，热门图书直接从内存缓存返回
+     * 缓存按 ETag 校验，ETag 来自短时间缓存的元数据，所以文件被覆盖后最多 STAT_TTL_MILLIS 就能读到新内容
+     *
+     * @param url 文件服务器地址
+     * @return
+     * @throws IOException
+     */
+    public String getContent(String url) throws IOException {
+        ContentSource source = resolve(url);
+        String content = contentCache.get(url, source.etag());
+        if (content != null) {
+            return content;
+        }
+        return contentFlight.execute(url + "\n" + source.etag(), () -> load(url, source));
+    }
+
+    private String load(String url, ContentSource source) throws IOException {
+        //上一轮合并读取刚结束时到达的请求，结果可能已经进缓存了
+        String content = contentCache.get(url, source.etag());
+        if (content != null) {
+            return content;
+        }
+        FileChannel channel = openLocal(source);
+        if (channel != null) {
+            try (InputStream in = Channels.newInputStream(channel)) {
+                content = TxtToString.readText(in, source.getCharset());
+            }
+        } else {
+            try (InputStream in = openStream(source)) {
+                content = TxtToString.readText(in, source.getCharset());
+            }
+        }
+        if (!content.isEmpty()) {
+            contentCache.put(url, source.etag(), content);
+        }
+        return content;
+    }
+
+    /**
+     * 确定这次读取用哪个对象：入库时或后台任务已经生成了 UTF-8 副本就读副本，不用再转码
+     *
+     * @param url 文件服务器地址
+     * @return
+     * @throws IOException
+     */
+    public ContentSource resolve(String url) throws IOException {
+        return resolve(url, null);
+    }
+
+    /**
+     * 按客户端指定的编码选对象：GB2312 读原文，UTF-8 读副本（副本不存在时退回原文）；null 时同 resolve(url)
+     * 字节偏移只在同一份文本里有意义，续读、恢复进度时要用拿到偏移时的那一份
+     * 原文被同名覆盖、副本还没重新生成时，副本已经过期，也退回原文
+     */
+    public ContentSource resolve(String url, String charset) throws IOException {
+        ObjectLocation location = ObjectLocation.fromUrl(url);
+        ObjectStat original = stat(location);
+        if (TxtVariants.isOriginal(location) && !TxtToString.CHARSET.equalsIgnoreCase(charset)) {
+            ObjectLocation utf8 = TxtVariants.utf8(location);
+            ObjectStat stat = statIfExists(utf8);
+            if (stat != null && TxtVariants.derivedFrom(stat, original.etag())) {
+                return new ContentSource(utf8, TxtVariants.UTF8, stat);
+            }
+        }
+        return new ContentSource(location, TxtToString.CHARSET, original);
+    }
+
+    /**
+     * 打开整个对象的原始字节流，由调用方负责关闭
+     */
+    public InputStream openStream(ContentSource source) throws IOException {
+        return open(source.getLocation(), 0, null);
+    }
+
+    /**
+     * 流式输出图书内容，支持单段 Range 请求：
+     * 没有 Range 时返回 200 和整个文件；有 Range 时只向 minio 取对应的字节，返回 206；范围越界返回 416
+     * 客户端接受 gzip 且不是 Range 请求时，直接输出入库时预先压缩好的副本，不在请求里临时压缩
+     * 这里只设置状态码和响应头，正文由返回的 StreamingResponseBody 写出；本地有缓存并且支持 sendfile 时交给 Tomcat 输出，返回 null
+     * 接口里请用 serveAsync，查元数据（可能要重试好几次）也放到 contentExecutor 里
+     *
+     * @param url      文件服务器地址
+     * @param request  请求，读取 Range / If-Range / If-None-Match / Accept-Encoding
+     * @param response 响应
+     * @return 输出正文的回调，没有正文要输出（416、304 或走了 sendfile）时返回 null
+     * @throws IOException
+     */
+    public StreamingResponseBody serve(String url, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ContentSource source = resolve(url);
+        long size = source.size();
+
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setContentType("text/plain;charset=" + source.getCharset());
+
+        String rangeHeader = request.getHeader("Range");
+        if (rangeHeader == null && acceptsGzip(request.getHeader("Accept-Encoding"))) {
+            ObjectLocation gzip = TxtVariants.gzip(source.getLocation());
+            ObjectStat gzipStat = statIfExists(gzip);
+            if (gzipStat != null && TxtVariants.derivedFrom(gzipStat, source.originEtag())) {
+                String gzipEtag = "\"" + unquote(gzipStat.etag()) + "\"";
+                response.setHeader("ETag", gzipEtag);
+                if (Conditional.notModified(request, response, gzipEtag, -1)) {
+                    return null;
+                }
+                response.setHeader("Content-Encoding", "gzip");
+                response.setContentLengthLong(gzipStat.length());
+                return write(new ContentSource(gzip, source.getCharset(), gzipStat), null, request);
+            }
+        }
+
+        String etag = "\"" + unquote(source.etag()) + "\"";
+        response.setHeader("ETag", etag);
+        if (Conditional.notModified(request, response, etag, -1)) {
+            return null;      //客户端已经有这个版本，304 不带正文
+        }
+
+        ByteRange range = ByteRange.parse(rangeHeader, size);
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && ifRange != null && !unquote(ifRange).equals(unquote(etag))) {
+            range = null;      //客户端手里的版本已经过期，只能重新下载整个文件
+        }
+
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + size);
+            return null;
+        }
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.contentRange(size));
+            response.setContentLengthLong(range.length());
+        } else {
+            response.setContentLengthLong(size);
+        }
+        return write(source, range, request);
+    }
+
+    /**
+     * 在 contentExecutor 里查找图书地址并执行 serve，Tomcat 的工作线程只负责开启异步请求，查库、stat、重试都不占用它
+     * 状态码（206、304、416）和响应头直接设置在响应上，返回的 ResponseEntity 沿用响应当前的状态码
+     *
+     * @param url 查出图书地址，图书不存在时应抛 FileNotFoundException；在 contentExecutor 里执行
+     */
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> serveAsync(ContentTask<String> url) {
+        //注入的 request/response 是按线程取当前请求的代理，到了 contentExecutor 里就取不到了，先拿到真正的对象
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        HttpServletRequest request = attributes.getRequest();
+        HttpServletResponse response = attributes.getResponse();
+        return async(() -> {
+            StreamingResponseBody body = serve(url.call(), request, response);
+            return ResponseEntity.status(response.getStatus()).body(body);
+        });
+    }
+
+    /**
+     * 输出整个对象或其中一段：本地磁盘有缓存就走 sendfile（连接器不支持时用 FileChannel.transferTo），否则从 minio 读
+     * sendfile 的文件由 Tomcat 稍后打开，先向磁盘缓存登记租期；transferTo 在这里就把文件打开，之后被淘汰也不影响
+     */
+    private StreamingResponseBody write(ContentSource source, ByteRange range, HttpServletRequest request) throws IOException {
+        long start = range == null ? 0 : range.getStart();
+        long length = range == null ? source.size() : range.length();
+
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            Path file = diskContentCache.lease(source.getLocation(), source.etag());
+            if (file != null) {
+                request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", start);
+                request.setAttribute("org.apache.tomcat.sendfile.end", start + length);
+                return null;
+            }
+        } else {
+            FileChannel channel = openLocal(source);
+            if (channel != null) {
+                return out -> transfer(channel, start, length, out);
+            }
+        }
+        ObjectLocation location = source.getLocation();
+        return out -> {
+            try (InputStream in = range == null ? open(location, 0, null) : open(location, start, length)) {
+                copy(in, out);
+            }
+        };
+    }
+
+    private static void transfer(FileChannel file, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = file) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long n = channel.transferTo(position, end - position, target);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+            }
+        }
+    }
+
+    /**
+     * 在 contentExecutor 里执行一次图书内容读取，供返回 CompletableFuture 的接口使用
+     * 线程池满了直接拒绝（由 GlobalExceptionHandler 返回稍后再试），不会退回到调用线程里执行
+     */
+    public <T> CompletableFuture<T> async(ContentTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, contentExecutor);
+    }
+
+    public interface ContentTask<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * 打开本地缓存文件，未命中或者刚好被淘汰掉时返回 null，由调用方改从 minio 读取
+     */
+    private FileChannel openLocal(ContentSource source) throws IOException {
+        Path file = diskContentCache.get(source.getLocation(), source.etag());
+        if (file == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 取对象元数据，短时间内直接用缓存
+     */
+    public ObjectStat stat(ObjectLocation location) throws IOException {
+        ObjectStat stat = statIfExists(location);
+        if (stat == null) {
+            throw new FileNotFoundException(location + " 不存在");
+        }
+        return stat;
+    }
+
+    /**
+     * 同 stat，对象不存在时返回 null，不存在的结果同样会缓存一小段时间
+     */
+    public ObjectStat statIfExists(ObjectLocation location) throws IOException {
+        CachedStat cached = stats.get(location);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached.stat;
+        }
+        return statFlight.execute(location, () -> {
+            ObjectStat stat;
+            try {
+                stat = fetch(location, () -> minioUtil.statObject(location.getBucket(), location.getObject()));
+            } catch (ErrorResponseException e) {
+                stat = null;     //minio 明确答复了错误（一般是 NoSuchKey），按不存在处理
+            }
+            if (stats.size() >= STAT_CACHE_LIMIT) {
+                stats.clear();
+            }
+            CachedStat fresh = new CachedStat(stat, System.currentTimeMillis() + STAT_TTL_MILLIS);
+            stats.put(location, fresh);
+            return fresh;
+        }).stat;
+    }
+
+    /**
+     * 请求合并的统计：真正读取的次数和被合并掉的次数
+     */
+    public Map<String, Object> flightStats() {
+        Map<String, Object> flights = new LinkedHashMap<>();
+        flights.put("content", contentFlight.stats());
+        flights.put("stat", statFlight.stats());
+        return flights;
+    }
+
+    /**
+     * 打开对象的字节流，只重试打开这一步；流已经交给调用方之后再断开就直接报错
+     */
+    private InputStream open(ObjectLocation location, long offset, Long length) throws IOException {
+        try {
+            return fetch(location, () -> minioUtil.getObject(location.getBucket(), location.getObject(), offset, length));
+        } catch (ErrorResponseException e) {
+            throw translate(location, e);
+        }
+    }
+
+    /**
+     * 读取 [offset, offset + buf.length) 到 buf，打开和读取放在一起重试，读到一半断开也能重新读这一段
+     */
+    private int readRange(ObjectLocation location, long offset, byte[] buf) throws IOException {
+        try {
+            return fetch(location, () -> {
+                try (InputStream in = minioUtil.getObject(location.getBucket(), location.getObject(), offset, (long) buf.length)) {
+                    return readFully(in, buf);
+                }
+            });
+        } catch (ErrorResponseException e) {
+            throw translate(location, e);
+        }
+    }
+
+    private static IOException translate(ObjectLocation location, ErrorResponseException e) {
+        ErrorCode code = e.errorResponse().errorCode();
+        if (code == ErrorCode.NO_SUCH_KEY || code == ErrorCode.NO_SUCH_OBJECT || code == ErrorCode.NO_SUCH_BUCKET) {
+            return new FileNotFoundException(location + " 不存在");
+        }
+        return new ContentFetchException(location.toString(), e);
+    }
+
+    /**
+     * 调用 minio，网络错误和服务端 5xx 按配置退避重试，重试完仍失败抛 ContentFetchException；
+     * minio 明确答复的错误（对象不存在、范围不对等）重试也没用，原样抛给调用方判断
+     */
+    private <T> T fetch(ObjectLocation location, MinioCall<T> call) throws ErrorResponseException, ContentFetchException {
+        ContentConfig.Http http = contentConfig.getHttp();
+        long backoff = http.getRetryBackoffMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return call.call();
+            } catch (ErrorResponseException e) {
+                throw e;
+            } catch (IOException | ServerException e) {
+                if (attempt >= http.getRetries()) {
+                    throw new ContentFetchException(location.toString(), e);
+                }
+            } catch (Exception e) {
+                throw new ContentFetchException(location.toString(), e);
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ContentFetchException(location.toString(), e);
+            }
+            backoff *= 2;
+        }
+    }
+
+    private interface MinioCall<T> {
+        T call() throws Exception;
+    }
+
+    ContentPage toPage(byte[] buf, int n, long offset, boolean eof, String charset) throws IOException {
+        return toPage(buf, n, offset, eof, false, charset);
+    }
+
+    private ContentPage toPage(byte[] buf, int n, long offset, boolean eof, boolean exact, String charset) throws IOException {
+        int cut = eof || exact ? n : safeCut(buf, n, charset);
+
+        ContentPage page = new ContentPage();
+        page.setOffset(offset);
+        page.setLength(cut);
+        page.setNext(offset + cut);
+        page.setEof(eof);
+        page.setContent(new String(buf, 0, cut, charset));
+        page.setCharset(charset);
+        return page;
+    }
+
+    /**
+     * Accept-Encoding 里有 gzip 或 *，并且 q 值不为 0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!"gzip".equalsIgnoreCase(coding) && !"*".equals(coding)) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().replace(" ", "");
+                if (param.startsWith("q=")) {
+                    try {
+                        rejected = Double.parseDouble(param.substring(2)) == 0;
+                    } catch (NumberFormatException e) {
+                        rejected = true;
+                    }
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String unquote(String etag) {
+        if (etag == null) {
+            return "";
+        }
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        if (etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        return etag;
+    }
+
+    /**
+     * 页尾切在哪里：优先在最后一个换行之后切，便于按行排版；没有换行时切在最后一个完整字符之后
+     * buf 从字符边界开始（offset 都是上一页的 next 或者索引里的位置）
+     *
+     * @return 切开的位置；buf 里连一个完整字符都没有时返回 n，保证翻页不会原地打转
+     */
+    static int safeCut(byte[] buf, int n, String charset) {
+        for (int i = n - 1; i >= 0; i--) {
+            if (buf[i] == '\n') {
+                return i + 1;
+            }
+        }
+        int cut = TxtVariants.UTF8.equalsIgnoreCase(charset) ? utf8Boundary(buf, n) : gbkBoundary(buf, n);
+        return cut > 0 ? cut : n;
+    }
+
+    /**
+     * UTF-8 的后续字节都是 10xxxxxx，往回找到最后一个首字节，按它声明的长度判断这个字符是否完整
+     */
+    static int utf8Boundary(byte[] buf, int n) {
+        int lead = n - 1;
+        while (lead >= 0 && lead > n - 4 && (buf[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead < 0) {
+            return 0;
+        }
+        int b = buf[lead] & 0xFF;
+        int width = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return lead + width <= n ? n : lead;
+    }
+
+    /**
+     * GB2312/GBK 双字节字符的后半个也可能落在 0x80 以上，往回看分不清首尾，只能从页首往前数
+     */
+    static int gbkBoundary(byte[] buf, int n) {
+        int i = 0;
+        while (i < n) {
+            int width = buf[i] >= 0 ? 1 : 2;
+            if (i + width > n) {
+                break;
+            }
+            i += width;
+        }
+        return i;
+    }
+
+    static int readFully(InputStream in, byte[] buf) throws IOException {
+        int n = 0;
+        while (n < buf.length) {
+            int r = in.read(buf, n, buf.length - n);
+            if (r == -1) {
+                break;
+            }
+            n += r;
+        }
+        return n;
+    }
+
+    static int readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        int n = 0;
+        while (buf.hasRemaining()) {
+            int r = channel.read(buf, position + n);
+            if (r == -1) {
+                break;
+            }
+            n += r;
+        }
+        return n;
+    }
+
+    static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[BUFFER_SIZE];
+        long total = 0;
+        int r;
+        while ((r = in.read(buf)) != -1) {
+            out.write(buf, 0, r);
+            total += r;
+        }
+        return total;
+    }
+
+    private static class CachedStat {
+        final ObjectStat stat;
+        final long expiresAt;
+
+        CachedStat(ObjectStat stat, long expiresAt) {
+            this.stat = stat;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
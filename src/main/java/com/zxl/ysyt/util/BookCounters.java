@@ -0,0 +1,159 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.mapper.BookCounterMapper;
+import com.zxl.ysyt.pojo.BookCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:50
+ *
+ * 每本书的评论数、阅读数，全部在内存里计数和读取，不用每次 COUNT(*)
+ * 计数用 LongAdder，并发累加时分散到不同的槽里，热点图书上几乎没有竞争；请求里只加内存，不写库
+ * 定时把上次写库以来的增量用一条多值 upsert 加到 book_counter 表上，启动时从表里读出已有的计数
+ */
+@Slf4j
+@Component
+public class BookCounters {
+
+    private static final int BATCH = 500;
+
+    @Autowired
+    private BookCounterMapper bookCounterMapper;
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    //启动时加载完之前不写库，免得把增量加到还没读出来的计数上之后又被当成初始值
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<BookCounter> rows = bookCounterMapper.selectList(null);
+            if (rows.isEmpty()) {
+                bookCounterMapper.seedCommentCounts();
+                rows = bookCounterMapper.selectList(null);
+            }
+            for (BookCounter row : rows) {
+                Counter counter = counter(row.getBid());
+                counter.baseComments = row.getComments() == null ? 0 : row.getComments();
+                counter.baseReads = row.getReads() == null ? 0 : row.getReads();
+            }
+            log.info("加载了 {} 本书的计数", rows.size());
+        } catch (Exception e) {
+            log.warn("加载图书计数失败，只统计本次启动以后的数据", e);
+        }
+        loaded = true;
+    }
+
+    public void commentAdded(String bid) {
+        counter(bid).comments.increment();
+    }
+
+    public void read(String bid) {
+        counter(bid).reads.increment();
+    }
+
+    /**
+     * @return 评论数和阅读数，没有记录的书都是 0
+     */
+    public BookCounter get(String bid) {
+        Counter counter = counters.get(bid);
+        if (counter == null) {
+            return new BookCounter(bid, 0L, 0L);
+        }
+        return new BookCounter(bid, counter.baseComments + counter.comments.sum(),
+                counter.baseReads + counter.reads.sum());
+    }
+
+    public List<BookCounter> get(Collection<String> bids) {
+        List<BookCounter> result = new ArrayList<>(bids.size());
+        for (String bid : bids) {
+            result.add(get(bid));
+        }
+        return result;
+    }
+
+    public List<BookCounter> all() {
+        return get(new ArrayList<>(counters.keySet()));
+    }
+
+    @Scheduled(initialDelay = 30 * 1000L, fixedDelay = 30 * 1000L)
+    public synchronized void flush() {
+        if (!loaded) {
+            return;
+        }
+        //不用 sumThenReset，并发累加可能丢；记下已经写库的累计值，每次写差值
+        List<BookCounter> deltas = new ArrayList<>();
+        List<long[]> totals = new ArrayList<>();
+        List<Counter> changed = new ArrayList<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long comments = counter.comments.sum();
+            long reads = counter.reads.sum();
+            if (comments != counter.flushedComments || reads != counter.flushedReads) {
+                deltas.add(new BookCounter(entry.getKey(), comments - counter.flushedComments, reads - counter.flushedReads));
+                totals.add(new long[]{comments, reads});
+                changed.add(counter);
+            }
+        }
+        for (int from = 0; from < deltas.size(); from += BATCH) {
+            int to = Math.min(from + BATCH, deltas.size());
+            try {
+                bookCounterMapper.addBatch(deltas.subList(from, to));
+            } catch (Exception e) {
+                log.warn("写入图书计数失败，下一轮重试", e);
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                changed.get(i).flushedComments = totals.get(i)[0];
+                changed.get(i).flushedReads = totals.get(i)[1];
+            }
+            rowsWritten.addAndGet(to - from);
+        }
+        if (!deltas.isEmpty()) {
+            flushes.incrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("books", counters.size());
+        stats.put("flushes", flushes.get());
+        stats.put("rowsWritten", rowsWritten.get());
+        return stats;
+    }
+
+    private Counter counter(String bid) {
+        Counter counter = counters.get(bid);
+        return counter != null ? counter : counters.computeIfAbsent(bid, k -> new Counter());
+    }
+
+    private static class Counter {
+        final LongAdder comments = new LongAdder();
+        final LongAdder reads = new LongAdder();
+        volatile long baseComments;      //启动时从表里读出来的
+        volatile long baseReads;
+        long flushedComments;            //已经写库的累计增量，只在 flush 里读写
+        long flushedReads;
+    }
+}
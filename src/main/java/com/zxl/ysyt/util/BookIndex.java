@@ -0,0 +1,150 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.lang.Chapter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 11:10
+ *
+ * 一本书的章节/分页偏移索引，只记录字节位置，不保存正文
+ * 文件格式：魔数、版本、源对象、ETag、编码、文件大小、页大小，然后是按差值存储的页偏移和章节偏移
+ */
+public class BookIndex {
+
+    private static final int MAGIC = 0x59494458;    // "YIDX"
+
+    private static final int VERSION = 4;      //2：超长的行也会在行内分页；3：记录编码；4：记录 ETag。旧索引读取时作废重建
+
+    private final String source;          //建索引时读取的对象（桶/对象名），对象变了索引就作废
+    private final String etag;            //source 的 ETag，同名对象被覆盖后索引也作废
+    private final String charset;         //source 的编码，按偏移读取时用它选同一份文本
+    private final long size;              //文件总字节数
+    private final int pageSize;           //每页的目标字节数
+    private final long[] pageOffsets;     //每页起始字节，尽量落在行首，超长的行在字符边界处断开
+    private final long[] chapterOffsets;  //每章起始字节
+    private final String[] chapterTitles;
+
+    public BookIndex(String source, String etag, String charset, long size, int pageSize, long[] pageOffsets, long[] chapterOffsets, String[] chapterTitles) {
+        this.source = source;
+        this.etag = etag;
+        this.charset = charset;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.pageOffsets = pageOffsets;
+        this.chapterOffsets = chapterOffsets;
+        this.chapterTitles = chapterTitles;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int pageCount() {
+        return pageOffsets.length;
+    }
+
+    public int chapterCount() {
+        return chapterOffsets.length;
+    }
+
+    public long pageOffset(int page) {
+        return pageOffsets[page];
+    }
+
+    public long pageLength(int page) {
+        return end(pageOffsets, page) - pageOffsets[page];
+    }
+
+    public Chapter chapter(int index) {
+        return new Chapter(index, chapterTitles[index], chapterOffsets[index],
+                end(chapterOffsets, index) - chapterOffsets[index]);
+    }
+
+    public List<Chapter> chapters() {
+        List<Chapter> list = new ArrayList<>(chapterOffsets.length);
+        for (int i = 0; i < chapterOffsets.length; i++) {
+            list.add(chapter(i));
+        }
+        return list;
+    }
+
+    private long end(long[] offsets, int i) {
+        return i + 1 < offsets.length ? offsets[i + 1] : size;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(source);
+        out.writeUTF(etag);
+        out.writeUTF(charset);
+        out.writeLong(size);
+        out.writeInt(pageSize);
+        writeOffsets(out, pageOffsets);
+        writeOffsets(out, chapterOffsets);
+        for (String title : chapterTitles) {
+            out.writeUTF(title);
+        }
+        out.flush();
+    }
+
+    public static BookIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("不是有效的图书索引文件");
+        }
+        String source = in.readUTF();
+        String etag = in.readUTF();
+        String charset = in.readUTF();
+        long size = in.readLong();
+        int pageSize = in.readInt();
+        long[] pageOffsets = readOffsets(in);
+        long[] chapterOffsets = readOffsets(in);
+        String[] chapterTitles = new String[chapterOffsets.length];
+        for (int i = 0; i < chapterTitles.length; i++) {
+            chapterTitles[i] = in.readUTF();
+        }
+        return new BookIndex(source, etag, charset, size, pageSize, pageOffsets, chapterOffsets, chapterTitles);
+    }
+
+    //相邻偏移的差值一般只有几 KB，按 int 存就够了
+    private static void writeOffsets(DataOutputStream out, long[] offsets) throws IOException {
+        out.writeInt(offsets.length);
+        long prev = 0;
+        for (long offset : offsets) {
+            out.writeInt((int) (offset - prev));
+            prev = offset;
+        }
+    }
+
+    private static long[] readOffsets(DataInputStream in) throws IOException {
+        long[] offsets = new long[in.readInt()];
+        long prev = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            prev += in.readInt();
+            offsets[i] = prev;
+        }
+        return offsets;
+    }
+}
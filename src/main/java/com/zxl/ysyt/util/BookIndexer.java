@@ -0,0 +1,229 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.pojo.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 11:30
+ *
+ * 图书入库时扫描一遍 txt，记下章节标题和固定大小分页的字节偏移，
+ * 索引以 index/{图书id}.idx 存在 txt 桶里，之后跳章、跳页只需要一次按范围读取
+ * 偏移是相对实际读取的那个对象的，对象变了（比如生成了 UTF-8 副本）或者同名对象被覆盖（ETag 变了）索引会重建
+ */
+@Slf4j
+@Component
+public class BookIndexer {
+
+    public static final int PAGE_SIZE = 4 * 1024;
+
+    private static final String INDEX_PREFIX = "index/";
+
+    //超过这个长度的行不可能是章节标题，不必解码
+    private static final int HEADING_MAX_BYTES = 120;
+
+    private static final Pattern HEADING = Pattern.compile(
+            "^(第[0-9０-９零〇一二三四五六七八九十百千万两]+[章回节卷集部篇]|序章|序言|楔子|引子|尾声|后记|番外|Chapter\\s*\\d+).{0,30}$");
+
+    @Autowired
+    private MinioUtil minioUtil;
+
+    @Autowired
+    private BookContentUtil bookContentUtil;
+
+    private final Map<String, BookIndex> indexes = new ConcurrentHashMap<>();
+
+    //入库建索引放到后台做，一次只建一本，避免同时下载太多整本书
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "book-indexer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 取一本书的索引：内存 -> txt 桶里的索引文件 -> 现场扫描一遍
+     *
+     * @param book 图书
+     * @return
+     * @throws IOException
+     */
+    public BookIndex getIndex(Book book) throws IOException {
+        ContentSource source = bookContentUtil.resolve(book.getUrl());
+        BookIndex index = indexes.get(book.getId());
+        if (matches(index, source)) {
+            return index;
+        }
+        index = load(book.getId());
+        if (!matches(index, source)) {
+            return index(book, source);
+        }
+        indexes.put(book.getId(), index);
+        return index;
+    }
+
+    private static boolean matches(BookIndex index, ContentSource source) {
+        return index != null
+                && index.getSource().equals(source.getLocation().toString())
+                && index.getEtag().equals(source.etag());
+    }
+
+    /**
+     * 扫描图书并保存索引
+     *
+     * @param book 图书
+     * @return
+     * @throws IOException
+     */
+    public BookIndex index(Book book) throws IOException {
+        return index(book, bookContentUtil.resolve(book.getUrl()));
+    }
+
+    private BookIndex index(Book book, ContentSource source) throws IOException {
+        BookIndex index;
+        try (InputStream in = bookContentUtil.openStream(source)) {
+            index = build(source.getLocation().toString(), source.etag(), in, PAGE_SIZE, source.getCharset());
+        }
+        store(book.getId(), index);
+        indexes.put(book.getId(), index);
+        log.info("图书 {} 索引完成：{} 章，{} 页", book.getId(), index.chapterCount(), index.pageCount());
+        return index;
+    }
+
+    /**
+     * 后台为一批图书建索引
+     */
+    public void indexAsync(List<Book> books) {
+        for (Book book : books) {
+            if (book.getUrl() == null) {
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    index(book);
+                } catch (IOException e) {
+                    log.warn("图书 {} 建立索引失败", book.getId(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 顺序扫描一遍文本，每一行的行首都可能成为分页点，短行会被解码出来判断是不是章节标题
+     * 优先在行首分页；一行超过了分页点半页还没结束（很长的段落、没有换行的文本），就在行内的字符边界处分页
+     */
+    static BookIndex build(String source, String etag, InputStream in, int pageSize, String charset) throws IOException {
+        LongList pages = new LongList();
+        LongList chapters = new LongList();
+        List<String> titles = new ArrayList<>();
+
+        byte[] buf = new byte[8 * 1024];
+        byte[] line = new byte[HEADING_MAX_BYTES];
+        int lineLen = 0;
+        boolean longLine = false;
+        long pos = 0;
+        long lineStart = 0;
+        long nextPage = 0;
+        boolean utf8 = TxtVariants.UTF8.equalsIgnoreCase(charset);
+        boolean trail = false;     //GB2312 下一个字节是双字节字符的后半个
+        int r;
+        while ((r = in.read(buf)) != -1) {
+            for (int i = 0; i < r; i++) {
+                byte b = buf[i];
+                boolean boundary = utf8 ? (b & 0xC0) != 0x80 : !trail;
+                trail = !utf8 && !trail && b < 0;
+                if (pos >= nextPage && (pos == lineStart || boundary && pos >= nextPage + pageSize / 2)) {
+                    pages.add(pos);
+                    nextPage = pos + pageSize;
+                }
+                pos++;
+                if (b == '\n') {
+                    if (!longLine && isHeading(line, lineLen, charset, titles)) {
+                        chapters.add(lineStart);
+                    }
+                    lineStart = pos;
+                    lineLen = 0;
+                    longLine = false;
+                } else if (b != '\r') {
+                    if (lineLen < line.length) {
+                        line[lineLen++] = b;
+                    } else {
+                        longLine = true;
+                    }
+                }
+            }
+        }
+        if (lineStart < pos && !longLine && isHeading(line, lineLen, charset, titles)) {
+            chapters.add(lineStart);
+        }
+        return new BookIndex(source, etag, charset, pos, pageSize, pages.toArray(), chapters.toArray(),
+                titles.toArray(new String[0]));
+    }
+
+    private static boolean isHeading(byte[] line, int len, String charset, List<String> titles) throws UnsupportedEncodingException {
+        if (len == 0) {
+            return false;
+        }
+        String text = new String(line, 0, len, charset).replace('　', ' ').trim();
+        if (text.isEmpty() || !HEADING.matcher(text).matches()) {
+            return false;
+        }
+        titles.add(text);
+        return true;
+    }
+
+    private BookIndex load(String bookId) {
+        try (InputStream in = minioUtil.getObject(MinioConstant.BUCKET_NAME_Txt, INDEX_PREFIX + bookId + ".idx")) {
+            if (in == null) {
+                return null;
+            }
+            return BookIndex.readFrom(new DataInputStream(new BufferedInputStream(in)));
+        } catch (Exception e) {
+            return null;      //索引文件不存在或者已经损坏，重新扫描即可
+        }
+    }
+
+    private void store(String bookId, BookIndex index) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            index.writeTo(new DataOutputStream(bytes));
+            minioUtil.putObject(MinioConstant.BUCKET_NAME_Txt, INDEX_PREFIX + bookId + ".idx",
+                    new ByteArrayInputStream(bytes.toByteArray()), "application/octet-stream");
+        } catch (Exception e) {
+            log.warn("图书 {} 的索引保存失败，只保留在内存中", bookId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class LongList {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
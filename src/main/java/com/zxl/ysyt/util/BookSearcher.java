@@ -0,0 +1,198 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.event.BookChangedEvent;
+import com.zxl.ysyt.common.lang.SearchHit;
+import com.zxl.ysyt.config.ContentConfig;
+import com.zxl.ysyt.pojo.Book;
+import com.zxl.ysyt.service.BookService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 19:40
+ *
+ * 图书正文的全文搜索，索引在内存里（见 InvertedIndex），搜索时不访问 minio
+ * 启动后在后台把所有图书建一遍索引，之后新增的图书在入库时增量加入
+ * 图书被删除或换了文件（BookChangedEvent）时，在后台把对应的索引删掉或重建
+ */
+@Slf4j
+@Component
+public class BookSearcher {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final int ID_CHUNK = 500;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookContentUtil bookContentUtil;
+
+    @Autowired
+    private ContentConfig contentConfig;
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    //搜索结果里带上书名和作者，不用再查数据库
+    private final Map<String, Book> books = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "book-searcher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexAll() {
+        if (contentConfig.getSearch().isEnabled()) {
+            indexAsync(bookService.list());
+        }
+    }
+
+    /**
+     * 后台把一批图书加入索引，一次只读一本
+     */
+    public void indexAsync(List<Book> list) {
+        if (!contentConfig.getSearch().isEnabled()) {
+            return;
+        }
+        for (Book book : list) {
+            if (book.getUrl() == null) {
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    index(book);
+                } catch (IOException e) {
+                    log.warn("图书 {} 加入全文索引失败", book.getId(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 读取整本书加入索引；直接读原始对象，不经过内容缓存，免得把热门图书挤出去
+     */
+    public void index(Book book) throws IOException {
+        ContentSource source = bookContentUtil.resolve(book.getUrl());
+        String text;
+        try (InputStream in = bookContentUtil.openStream(source)) {
+            text = TxtToString.readText(in, source.getCharset());
+        }
+        long budget = contentConfig.getSearch().getMaxChars();
+        if (!index.contains(book.getId()) && index.chars() + text.length() > budget) {
+            log.warn("全文索引已达到 {} 字的上限，图书 {} 不再加入", budget, book.getId());
+            return;
+        }
+        books.put(book.getId(), book);
+        index.add(book.getId(), text);
+        log.info("图书 {} 已加入全文索引，共 {} 字", book.getId(), text.length());
+    }
+
+    public void remove(String bookId) {
+        index.remove(bookId);
+        books.remove(bookId);
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (books.isEmpty()) {
+            return;
+        }
+        Collection<String> ids = event.getIds() == null ? new ArrayList<>(books.keySet()) : event.getIds();
+        executor.execute(() -> {
+            try {
+                refresh(ids);
+            } catch (RuntimeException e) {
+                log.warn("全文索引同步图书改动失败", e);
+            }
+        });
+    }
+
+    /**
+     * 只处理已经在索引里的图书：查不到的删掉，文件换了的重建，其余只更新书名作者
+     * 新增的图书由入库时的 indexAsync 负责，这里不管
+     */
+    void refresh(Collection<String> ids) {
+        List<String> indexed = new ArrayList<>();
+        for (String id : ids) {
+            if (books.containsKey(id)) {
+                indexed.add(id);
+            }
+        }
+        for (int from = 0; from < indexed.size(); from += ID_CHUNK) {
+            List<String> chunk = indexed.subList(from, Math.min(from + ID_CHUNK, indexed.size()));
+            Map<String, Book> found = new HashMap<>();
+            for (Book book : bookService.listByIds(chunk)) {
+                found.put(book.getId(), book);
+            }
+            for (String id : chunk) {
+                Book book = found.get(id);
+                Book old = books.get(id);
+                if (book == null || book.getUrl() == null) {
+                    remove(id);
+                    log.info("图书 {} 已从全文索引中移除", id);
+                } else if (old != null && !book.getUrl().equals(old.getUrl())) {
+                    try {
+                        index(book);
+                    } catch (IOException e) {
+                        remove(id);     //旧文件的内容已经不对了，宁可搜不到
+                        log.warn("图书 {} 重建全文索引失败", id, e);
+                    }
+                } else {
+                    books.put(id, book);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param query 查询语句，汉字至少两个字
+     * @param limit 最多返回几条，限制在 MAX_LIMIT 以内
+     * @return 按相关度排序的片段
+     */
+    public List<SearchHit> search(String query, int limit) {
+        limit = Math.min(limit <= 0 ? DEFAULT_LIMIT : limit, MAX_LIMIT);
+        List<InvertedIndex.Hit> hits = index.search(query, limit);
+        List<SearchHit> result = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            SearchHit h = new SearchHit();
+            h.setBookId(hit.getKey());
+            Book book = books.get(hit.getKey());
+            if (book != null) {
+                h.setBname(book.getBname());
+                h.setAuthor(book.getAuthor());
+            }
+            h.setOffset(hit.getOffset());
+            h.setLength(hit.getLength());
+            h.setScore(hit.getScore());
+            h.setSnippet(hit.getSnippet());
+            result.add(h);
+        }
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        return index.stats();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,166 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.BookcaseConfig;
+import com.zxl.ysyt.pojo.BookCase;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 22:10
+ *
+ * 每个用户书架列表的内存缓存，按用户数限制大小，超出后按 LRU 淘汰
+ * 读的时候没有才查库；新增、删除时直接改缓存里的列表（写穿），不用等下次查库
+ * 缓存的列表不可修改，改动时整份替换，读到的列表不会被别的线程改掉
+ */
+@Component
+public class BookcaseCache {
+
+    private final int maxUsers;
+
+    private final LinkedHashMap<String, List<BookCase>> shelves = new LinkedHashMap<>(64, 0.75f, true);
+
+    //每次写操作加一；查库期间有过写操作的话，查出来的结果可能已经过期，不放进缓存
+    private long writes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong skippedLoads = new AtomicLong();
+    private final AtomicLong writeThroughs = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public BookcaseCache(BookcaseConfig bookcaseConfig) {
+        this.maxUsers = bookcaseConfig.getCache().getMaxUsers();
+    }
+
+    /**
+     * @return 缓存的书架，未命中返回 null
+     */
+    public List<BookCase> get(String uid) {
+        List<BookCase> shelf;
+        synchronized (this) {
+            shelf = shelves.get(uid);
+        }
+        (shelf != null ? hits : misses).incrementAndGet();
+        return shelf;
+    }
+
+    /**
+     * 查库之前先取一个戳，查完用 put 放进缓存
+     */
+    public synchronized long stamp() {
+        return writes;
+    }
+
+    /**
+     * @param stamp 查库前 stamp() 的返回值，之后有过写操作就放弃这次结果
+     * @return 放进缓存的不可修改列表
+     */
+    public List<BookCase> put(String uid, List<BookCase> shelf, long stamp) {
+        List<BookCase> copy = Collections.unmodifiableList(new ArrayList<>(shelf));
+        synchronized (this) {
+            if (stamp != writes) {
+                skippedLoads.incrementAndGet();
+                return copy;
+            }
+            shelves.put(uid, copy);
+            loads.incrementAndGet();
+            evict();
+        }
+        return copy;
+    }
+
+    /**
+     * 新增了一条书架记录，已缓存的话直接追加
+     */
+    public synchronized void add(BookCase bookCase) {
+        writes++;
+        List<BookCase> shelf = shelves.get(bookCase.getUid());
+        if (shelf == null) {
+            return;
+        }
+        List<BookCase> updated = new ArrayList<>(shelf.size() + 1);
+        for (BookCase existing : shelf) {
+            if (!Objects.equals(existing.getId(), bookCase.getId())) {
+                updated.add(existing);
+            }
+        }
+        updated.add(bookCase);
+        shelves.put(bookCase.getUid(), Collections.unmodifiableList(updated));
+        writeThroughs.incrementAndGet();
+    }
+
+    /**
+     * 删除了某个用户的几条书架记录，已缓存的话直接去掉
+     */
+    public synchronized void remove(String uid, Collection<? extends Serializable> ids) {
+        writes++;
+        List<BookCase> shelf = shelves.get(uid);
+        if (shelf == null) {
+            return;
+        }
+        Set<String> removed = new HashSet<>();
+        for (Serializable id : ids) {
+            removed.add(String.valueOf(id));
+        }
+        List<BookCase> updated = new ArrayList<>(shelf.size());
+        for (BookCase existing : shelf) {
+            if (!removed.contains(String.valueOf(existing.getId()))) {
+                updated.add(existing);
+            }
+        }
+        shelves.put(uid, Collections.unmodifiableList(updated));
+        writeThroughs.incrementAndGet();
+    }
+
+    /**
+     * 改动没法直接合并时整份作废，下次读取重新查库
+     *
+     * @param uid 用户id，为 null 表示不知道是谁的书架，全部作废
+     */
+    public synchronized void invalidate(String uid) {
+        writes++;
+        if (uid == null) {
+            shelves.clear();
+        } else {
+            shelves.remove(uid);
+        }
+        invalidations.incrementAndGet();
+    }
+
+    //调用方需持有锁
+    private void evict() {
+        Iterator<String> it = shelves.keySet().iterator();
+        while (shelves.size() > maxUsers && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        synchronized (this) {
+            stats.put("users", shelves.size());
+        }
+        stats.put("maxUsers", maxUsers);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0 : (double) h / (h + m));
+        stats.put("loads", loads.get());
+        stats.put("skippedLoads", skippedLoads.get());
+        stats.put("writeThroughs", writeThroughs.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
@@ -0,0 +1,91 @@
+package com.zxl.ysyt.util;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 14:10
+ *
+ * HTTP Range 请求头的解析，只支持单个字节范围（bytes=a-b、bytes=a-、bytes=-n）
+ */
+public class ByteRange {
+
+    /**
+     * 范围落在文件之外，应当返回 416
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private final long start;
+    private final long end;      //包含 end 本身
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @param header Range 请求头
+     * @param size   文件总字节数
+     * @return 解析出的范围；请求头缺失、格式不对或者是多段范围时返回 null，按普通请求返回整个文件
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.indexOf(',') >= 0) {
+            return null;
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);      //bytes=-n 表示最后 n 个字节
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = size - 1;
+                if (!last.isEmpty()) {
+                    long requested = Long.parseLong(last);
+                    if (requested < start) {
+                        return null;
+                    }
+                    end = Math.min(requested, end);
+                }
+            }
+            if (start >= size || start < 0) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String contentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
@@ -0,0 +1,352 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.lang.Suggestion;
+import com.zxl.ysyt.mapper.BookMapper;
+import com.zxl.ysyt.pojo.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 20:10
+ *
+ * 书名、作者、关键字的 n-gram 索引，用于输入联想，不再需要 findAll 之后在前端过滤或者 LIKE '%x%' 全表扫描
+ * 每个字段规范化（全角转半角、转小写、去掉空白）后把单字和相邻两字都作为索引项，键是把字符拼起来的 int，
+ * 倒排表是按槽位递增的 int 数组；查询先求交集得到候选，再逐个确认确实包含查询串
+ * 启动后全量加载一次，之后按 update_time 增量刷新；图书修改时占用新槽位，旧槽位作废，作废的多了整体重建
+ */
+@Slf4j
+@Component
+public class CatalogIndex {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final int BATCH = 1000;
+
+    //增量刷新时往回多看一段，防止同一时刻提交得晚的修改被漏掉；重复读到的行没有变化会直接跳过
+    private static final long OVERLAP_MILLIS = 5000;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Entry> slots = new ArrayList<>();
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+
+    private final Map<Integer, InvertedIndex.IntList> grams = new HashMap<>();
+
+    private int dead;
+
+    //只有刷新线程会读写
+    private boolean loaded;
+    private Date watermark = new Date(0);
+
+    @Scheduled(initialDelay = 1000L, fixedDelay = 5000L)
+    public void refresh() {
+        try {
+            if (!loaded) {
+                loadAll();
+                loaded = true;
+            } else {
+                loadChanges();
+            }
+        } catch (Exception e) {
+            log.warn("刷新图书目录索引失败", e);
+        }
+    }
+
+    private void loadAll() {
+        long afterId = 0;
+        int count = 0;
+        List<Book> batch;
+        do {
+            batch = bookMapper.selectCatalogAfter(afterId, BATCH);
+            apply(batch);
+            for (Book book : batch) {
+                advance(book);
+                afterId = Long.parseLong(book.getId());
+            }
+            count += batch.size();
+        } while (batch.size() == BATCH);
+        log.info("图书目录索引加载完成，共 {} 本", count);
+    }
+
+    private void loadChanges() {
+        Date since = new Date(watermark.getTime() - OVERLAP_MILLIS);
+        long afterId = 0;
+        List<Book> batch;
+        do {
+            batch = bookMapper.selectChangedSince(since, afterId, BATCH);
+            apply(batch);
+            for (Book book : batch) {
+                advance(book);
+                since = book.getUpdateTime();
+                afterId = Long.parseLong(book.getId());
+            }
+        } while (batch.size() == BATCH);
+    }
+
+    private void advance(Book book) {
+        Date time = book.getUpdateTime();
+        if (time != null && time.after(watermark)) {
+            watermark = time;
+        }
+    }
+
+    /**
+     * 把一批改动合并进索引，新增、修改、删除都在这里处理
+     */
+    void apply(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                Integer old = slotById.get(book.getId());
+                boolean deleted = book.getDeleted() != null && book.getDeleted() != 0;
+                if (old != null) {
+                    Entry entry = slots.get(old);
+                    if (!deleted && entry.sameAs(book)) {
+                        continue;
+                    }
+                    slots.set(old, null);
+                    slotById.remove(book.getId());
+                    dead++;
+                }
+                if (!deleted) {
+                    add(new Entry(book));
+                }
+            }
+            if (dead > 1000 && dead > slotById.size()) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //调用方需持有写锁
+    private void add(Entry entry) {
+        int slot = slots.size();
+        slots.add(entry);
+        slotById.put(entry.id, slot);
+        Set<Integer> keys = new HashSet<>();
+        for (String field : new String[]{entry.bname, entry.author, entry.keyword}) {
+            for (int i = 0; i < field.length(); i++) {
+                keys.add(gram(field.charAt(i)));
+                if (i + 1 < field.length()) {
+                    keys.add(gram(field.charAt(i), field.charAt(i + 1)));
+                }
+            }
+        }
+        for (Integer key : keys) {
+            grams.computeIfAbsent(key, k -> new InvertedIndex.IntList()).add(slot);
+        }
+    }
+
+    //调用方需持有写锁
+    private void rebuild() {
+        List<Entry> live = new ArrayList<>(slotById.size());
+        for (Entry entry : slots) {
+            if (entry != null) {
+                live.add(entry);
+            }
+        }
+        slots.clear();
+        slotById.clear();
+        grams.clear();
+        dead = 0;
+        for (Entry entry : live) {
+            add(entry);
+        }
+    }
+
+    /**
+     * @param query 输入的部分书名、作者或关键字
+     * @param limit 最多返回几条
+     * @return 书名开头匹配的排最前，然后是书名包含、作者、关键字，同一档里书名短的在前
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String q = normalize(query == null ? "" : query);
+        if (q.isEmpty()) {
+            return Collections.emptyList();
+        }
+        limit = Math.min(limit <= 0 ? DEFAULT_LIMIT : limit, MAX_LIMIT);
+
+        lock.readLock().lock();
+        try {
+            List<InvertedIndex.IntList> lists = new ArrayList<>();
+            if (q.length() == 1) {
+                lists.add(grams.get(gram(q.charAt(0))));
+            } else {
+                for (int i = 0; i + 1 < q.length(); i++) {
+                    lists.add(grams.get(gram(q.charAt(i), q.charAt(i + 1))));
+                }
+            }
+            for (InvertedIndex.IntList list : lists) {
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+            }
+            lists.sort(Comparator.comparingInt(InvertedIndex.IntList::size));
+
+            Comparator<Ranked> order = Comparator.comparingInt((Ranked r) -> r.tier)
+                    .thenComparingInt(r -> r.entry.bname.length())
+                    .thenComparing(r -> r.entry.id);
+            PriorityQueue<Ranked> top = new PriorityQueue<>(limit + 1, order.reversed());
+            InvertedIndex.IntList shortest = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            outer:
+            for (int i = 0; i < shortest.size(); i++) {
+                int slot = shortest.get(i);
+                for (int k = 1; k < lists.size(); k++) {
+                    int pos = lists.get(k).seek(slot, cursors[k]);
+                    if (pos < 0) {
+                        if (pos == InvertedIndex.IntList.EXHAUSTED) {
+                            break outer;
+                        }
+                        cursors[k] = -pos - 1;
+                        continue outer;
+                    }
+                    cursors[k] = pos;
+                }
+                Entry entry = slots.get(slot);
+                if (entry == null) {
+                    continue;
+                }
+                if (top.size() == limit && top.peek().tier == 0 && !entry.bname.startsWith(q)) {
+                    continue;      //前 limit 条都已经是书名开头匹配的，只有同样开头匹配的才可能挤进来
+                }
+                int tier = entry.tier(q);
+                if (tier < 0) {
+                    continue;      //几个二元组都出现了，但不是连在一起出现的
+                }
+                Ranked candidate = new Ranked(entry, tier);
+                if (top.size() < limit) {
+                    top.offer(candidate);
+                } else if (order.compare(candidate, top.peek()) < 0) {
+                    top.poll();
+                    top.offer(candidate);
+                }
+            }
+
+            List<Ranked> ranked = new ArrayList<>(top);
+            ranked.sort(order);
+            List<Suggestion> result = new ArrayList<>(ranked.size());
+            for (Ranked r : ranked) {
+                result.add(r.entry.toSuggestion());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("books", slotById.size());
+            stats.put("deadSlots", dead);
+            stats.put("grams", grams.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("watermark", watermark);
+        return stats;
+    }
+
+    private static int gram(char c) {
+        return c;
+    }
+
+    private static int gram(char c1, char c2) {
+        return (c1 << 16) | c2;      //规范化后不会出现 \0，和单字的键不会冲突
+    }
+
+    static String normalize(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = InvertedIndex.normalize(s.charAt(i));
+            if (!Character.isWhitespace(c) && c != '　' && c != 0) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class Entry {
+        final String id;
+        final String rawBname;
+        final String rawAuthor;
+        final String rawKeyword;
+        final String bname;
+        final String author;
+        final String keyword;
+
+        Entry(Book book) {
+            this.id = book.getId();
+            this.rawBname = book.getBname();
+            this.rawAuthor = book.getAuthor();
+            this.rawKeyword = book.getKeyword();
+            this.bname = normalize(rawBname == null ? "" : rawBname);
+            this.author = normalize(rawAuthor == null ? "" : rawAuthor);
+            this.keyword = normalize(rawKeyword == null ? "" : rawKeyword);
+        }
+
+        boolean sameAs(Book book) {
+            return Objects.equals(rawBname, book.getBname())
+                    && Objects.equals(rawAuthor, book.getAuthor())
+                    && Objects.equals(rawKeyword, book.getKeyword());
+        }
+
+        int tier(String q) {
+            if (bname.startsWith(q)) {
+                return 0;
+            }
+            if (bname.contains(q)) {
+                return 1;
+            }
+            if (author.startsWith(q)) {
+                return 2;
+            }
+            if (author.contains(q)) {
+                return 3;
+            }
+            if (keyword.contains(q)) {
+                return 4;
+            }
+            return -1;
+        }
+
+        Suggestion toSuggestion() {
+            Suggestion s = new Suggestion();
+            s.setId(id);
+            s.setBname(rawBname);
+            s.setAuthor(rawAuthor);
+            s.setKeyword(rawKeyword);
+            return s;
+        }
+    }
+
+    private static class Ranked {
+        final Entry entry;
+        final int tier;
+
+        Ranked(Entry entry, int tier) {
+            this.entry = entry;
+            this.tier = tier;
+        }
+    }
+}
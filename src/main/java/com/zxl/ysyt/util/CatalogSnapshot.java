@@ -0,0 +1,149 @@
+package com.zxl.ysyt.util;
+
+import com.alibaba.fastjson.JSON;
+import com.zxl.ysyt.common.event.BookChangedEvent;
+import com.zxl.ysyt.pojo.Book;
+import com.zxl.ysyt.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 20:40
+ *
+ * 整个图书目录的快照：查询结果加上已经序列化好的 JSON 字节和 ETag，首页加载不再每次查表、序列化
+ * 按 id 批量取图书时也先查快照里的对象
+ * 图书有改动时版本号加一，下一次读取时重建；直接改数据库的情况靠 MAX_AGE_MILLIS 兜底
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final long MAX_AGE_MILLIS = 5 * 60 * 1000L;
+
+    //按 id 批量查库时每条 IN 语句最多带几个 id
+    private static final int ID_CHUNK = 500;
+
+    @Autowired
+    private BookService bookService;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot current;
+
+    public Snapshot get() {
+        Snapshot snapshot = current;
+        if (isFresh(snapshot)) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current;
+            if (isFresh(snapshot)) {
+                return snapshot;
+            }
+            //先记下版本号再查表，查的过程中又有改动的话版本号对不上，下次读取会再重建
+            long v = version.get();
+            List<Book> books = bookService.list();
+            byte[] json = JSON.toJSONString(books).getBytes(StandardCharsets.UTF_8);
+            snapshot = new Snapshot(v, Collections.unmodifiableList(books), json,
+                    "\"" + DigestUtils.md5DigestAsHex(json) + "\"", System.currentTimeMillis());
+            current = snapshot;
+            return snapshot;
+        }
+    }
+
+    /**
+     * 按 id 批量取图书，先从当前快照里找，找不到的才分批查库；快照已经过期时不用它，也不会为此重建快照
+     *
+     * @param ids 图书 id，可以重复
+     * @return 和 ids 一一对应，不存在的位置是 null
+     */
+    public List<Book> findByIds(List<String> ids) {
+        Map<String, Book> found = new HashMap<>();
+        Snapshot snapshot = current;
+        Set<String> missing = new LinkedHashSet<>();
+        for (String id : ids) {
+            Book book = isFresh(snapshot) ? snapshot.byId.get(id) : null;
+            if (book != null) {
+                found.put(id, book);
+            } else if (id != null) {
+                missing.add(id);
+            }
+        }
+        List<String> misses = new ArrayList<>(missing);
+        for (int from = 0; from < misses.size(); from += ID_CHUNK) {
+            List<String> chunk = misses.subList(from, Math.min(from + ID_CHUNK, misses.size()));
+            for (Book book : bookService.listByIds(chunk)) {
+                found.put(book.getId(), book);
+            }
+        }
+
+        List<Book> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            result.add(found.get(id));
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null
+                && snapshot.version == version.get()
+                && System.currentTimeMillis() - snapshot.builtAt < MAX_AGE_MILLIS;
+    }
+
+    public static class Snapshot {
+        private final long version;
+        private final List<Book> books;
+        private final Map<String, Book> byId;
+        private final byte[] json;
+        private final String etag;
+        private final long builtAt;
+
+        Snapshot(long version, List<Book> books, byte[] json, String etag, long builtAt) {
+            this.version = version;
+            this.books = books;
+            this.byId = new HashMap<>(books.size() * 2);
+            for (Book book : books) {
+                byId.put(book.getId(), book);
+            }
+            this.json = json;
+            this.etag = etag;
+            this.builtAt = builtAt;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * 快照里的图书对象是共享的，只读，不要修改
+         */
+        public List<Book> getBooks() {
+            return books;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
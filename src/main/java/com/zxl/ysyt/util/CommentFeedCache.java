@@ -0,0 +1,121 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.CommentConfig;
+import com.zxl.ysyt.pojo.Comment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:30
+ *
+ * 热门图书评论第一页的缓存，按图书数量限制大小，超出后按 LRU 淘汰
+ * 每本书缓存最新的 HEAD_SIZE 条（比一页多一条，用来判断有没有下一页），新评论写库后直接插到前面
+ */
+@Component
+public class CommentFeedCache {
+
+    public static final int PAGE_SIZE = 20;
+
+    static final int HEAD_SIZE = PAGE_SIZE + 1;
+
+    //和评论流的排序一致：create_time desc, id desc
+    static final Comparator<Comment> NEWEST_FIRST = Comparator
+            .comparing(Comment::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Comment::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final int maxBooks;
+
+    private final LinkedHashMap<String, List<Comment>> heads = new LinkedHashMap<>(64, 0.75f, true);
+
+    //每次写操作加一；查库期间有过写操作的话，查出来的结果可能已经过期，不放进缓存
+    private long writes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public CommentFeedCache(CommentConfig commentConfig) {
+        this.maxBooks = commentConfig.getHotBooks();
+    }
+
+    /**
+     * @return 最新的至多 HEAD_SIZE 条评论，按时间倒序，未命中返回 null
+     */
+    public List<Comment> get(String bid) {
+        List<Comment> head;
+        synchronized (this) {
+            head = heads.get(bid);
+        }
+        (head != null ? hits : misses).incrementAndGet();
+        return head;
+    }
+
+    public synchronized long stamp() {
+        return writes;
+    }
+
+    /**
+     * @param stamp 查库前 stamp() 的返回值，之后有过写操作就不放进缓存
+     */
+    public List<Comment> put(String bid, List<Comment> head, long stamp) {
+        List<Comment> copy = Collections.unmodifiableList(new ArrayList<>(head));
+        synchronized (this) {
+            if (stamp == writes) {
+                heads.put(bid, copy);
+                Iterator<String> it = heads.keySet().iterator();
+                while (heads.size() > maxBooks && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 一批新评论写库以后调用，已缓存的图书把新评论插到最前面
+     *
+     * @param comments 同一批写入的评论，顺序不限
+     */
+    public synchronized void added(Collection<Comment> comments) {
+        writes++;
+        Map<String, List<Comment>> byBook = new HashMap<>();
+        for (Comment comment : comments) {
+            if (heads.containsKey(comment.getBid())) {
+                byBook.computeIfAbsent(comment.getBid(), k -> new ArrayList<>()).add(comment);
+            }
+        }
+        byBook.forEach((bid, added) -> {
+            List<Comment> merged = new ArrayList<>(added);
+            merged.addAll(heads.get(bid));
+            merged.sort(NEWEST_FIRST);
+            heads.put(bid, Collections.unmodifiableList(new ArrayList<>(merged.subList(0, Math.min(HEAD_SIZE, merged.size())))));
+        });
+    }
+
+    public synchronized void invalidate(String bid) {
+        writes++;
+        heads.remove(bid);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        synchronized (this) {
+            stats.put("books", heads.size());
+        }
+        stats.put("maxBooks", maxBooks);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
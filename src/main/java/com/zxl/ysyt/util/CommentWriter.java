@@ -0,0 +1,164 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.CommentConfig;
+import com.zxl.ysyt.mapper.CommentMapper;
+import com.zxl.ysyt.pojo.Comment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:30
+ *
+ * 评论的后写（write-behind）：发表评论只是放进有界队列，由一个后台线程攒成一批，用一条多值 insert 写库
+ * 热门图书刷屏时请求线程不用等数据库，写库的次数也只和批数有关；队列排满时拒绝新评论，由全局异常处理返回繁忙
+ * 写库成功后把新评论合并进第一页缓存（见 CommentFeedCache），评论在写库之前不会出现在评论流里
+ */
+@Slf4j
+@Component
+public class CommentWriter {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final int batchSize;
+
+    private final long lingerMillis;
+
+    private final BlockingQueue<Comment> queue;
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @Autowired
+    private CommentFeedCache commentFeedCache;
+
+    @Autowired
+    private BookCounters bookCounters;
+
+    private final Thread worker = new Thread(this::run, "comment-writer");
+
+    private volatile boolean running = true;
+
+    private final AtomicLong posted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Autowired
+    public CommentWriter(CommentConfig commentConfig) {
+        this.batchSize = commentConfig.getBatchSize();
+        this.lingerMillis = commentConfig.getLingerMillis();
+        this.queue = new ArrayBlockingQueue<>(commentConfig.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 发表一条评论，创建时间取发表的时刻
+     *
+     * @throws RejectedExecutionException 队列已满
+     */
+    public void post(Comment comment) {
+        Date now = new Date();
+        comment.setId(null);
+        comment.setCreateTime(now);
+        comment.setUpdateTime(now);
+        comment.setDeleted(0);
+        if (!queue.offer(comment)) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("评论写入队列已满");
+        }
+        posted.incrementAndGet();
+    }
+
+    private void run() {
+        List<Comment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Comment first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                //再等一小会儿，让同一时刻的评论凑进同一批
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Comment next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Comment> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                commentMapper.insertBatch(batch);      //不用 saveBatch：自动填充会把创建时间改成写库的时刻
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+                commentFeedCache.added(batch);
+                for (Comment comment : batch) {
+                    bookCounters.commentAdded(comment.getBid());
+                }
+                return;
+            } catch (Exception e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    dropped.addAndGet(batch.size());
+                    log.error("写入 {} 条评论失败，已放弃", batch.size(), e);
+                    return;
+                }
+                log.warn("写入 {} 条评论失败，第 {} 次重试", batch.size(), attempt, e);
+                Thread.sleep(100L << attempt);
+            }
+        }
+    }
+
+    /**
+     * 退出前把队列里剩下的评论写完
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("posted", posted.get());
+        stats.put("written", written.get());
+        stats.put("batches", batches.get());
+        stats.put("rejected", rejected.get());
+        stats.put("dropped", dropped.get());
+        return stats;
+    }
+}
@@ -0,0 +1,55 @@
+package com.zxl.ysyt.util;
+
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 21:30
+ *
+ * 条件请求（If-None-Match / If-Modified-Since）的公共处理
+ * 校验值由实体的 updateTime 算出来，客户端手里的版本没变时直接回 304，不再序列化正文
+ * 控制器判断为未修改时返回 null 即可，Spring MVC 看到 304 不会再写响应体
+ */
+public final class Conditional {
+
+    //%f 是微秒，时间精确到微秒；列表的校验值里有 count，删除也能反映出来
+    public static final String LIST_VERSION_COLUMNS = "count(*) as total, "
+            + "date_format(max(update_time), '%Y%m%d%H%i%s%f') as latest";
+
+    private Conditional() {
+    }
+
+    /**
+     * 单个实体：ETag 是 id 加修改时间，同时带上 Last-Modified
+     *
+     * @return true 表示客户端的版本仍然有效，已经设置好 304
+     */
+    public static boolean notModified(HttpServletRequest request, HttpServletResponse response, Object id, Date updateTime) {
+        long lastModified = updateTime == null ? -1 : updateTime.getTime();
+        return notModified(request, response, "W/\"" + id + "-" + lastModified + "\"", lastModified);
+    }
+
+    /**
+     * 列表：传入用 LIST_VERSION_COLUMNS 查出来的行数和最后修改时间
+     */
+    public static boolean notModified(HttpServletRequest request, HttpServletResponse response, String scope, Map<String, Object> version) {
+        Object total = version == null ? 0 : version.get("total");
+        Object latest = version == null ? null : version.get("latest");
+        return notModified(request, response, "W/\"" + scope + "-" + total + "-" + latest + "\"", -1);
+    }
+
+    /**
+     * @param etag         强校验值要带引号，弱校验值以 W/ 开头
+     * @param lastModified 毫秒时间戳，没有时传 -1
+     */
+    public static boolean notModified(HttpServletRequest request, HttpServletResponse response, String etag, long lastModified) {
+        //允许客户端缓存，但每次使用前都要回来验证
+        response.setHeader("Cache-Control", "no-cache");
+        return new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+}
@@ -0,0 +1,126 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.ContentConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 15:30
+ *
+ * 解码后整本书文本的内存缓存，按占用字节数限制大小，超出后按 LRU 淘汰
+ * 以图书地址为键，同时记下对象的 ETag，文件被覆盖后 ETag 对不上就当作未命中
+ */
+@Component
+public class ContentCache {
+
+    //一个 String 除了字符数组以外的大致开销
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long weight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ContentCache(ContentConfig contentConfig) {
+        this.maxBytes = contentConfig.getCache().getMaxBytes();
+    }
+
+    /**
+     * @param url  图书地址
+     * @param etag 对象当前的 ETag
+     * @return 缓存的文本，未命中或者 ETag 已经变了返回 null
+     */
+    public String get(String url, String etag) {
+        synchronized (this) {
+            Entry entry = entries.get(url);
+            if (entry != null) {
+                if (entry.etag.equals(etag)) {
+                    hits.incrementAndGet();
+                    return entry.content;
+                }
+                entries.remove(url);
+                weight -= entry.weight;
+                stale.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String url, String etag, String content) {
+        long w = weigh(content);
+        if (w > maxBytes / 8) {
+            return;      //单本书太大就不缓存了，免得一本书把整个缓存挤空
+        }
+        synchronized (this) {
+            Entry old = entries.put(url, new Entry(etag, content, w));
+            if (old != null) {
+                weight -= old.weight;
+            }
+            weight += w;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (weight > maxBytes && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                weight -= eldest.weight;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void invalidate(String url) {
+        Entry old = entries.remove(url);
+        if (old != null) {
+            weight -= old.weight;
+        }
+    }
+
+    /**
+     * 命中率等统计数据
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long h = hits.get();
+        long m = misses.get();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("weightBytes", weight);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0 : (double) h / (h + m));
+        stats.put("stale", stale.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private static long weigh(String content) {
+        return ENTRY_OVERHEAD + 2L * content.length();
+    }
+
+    private static class Entry {
+        final String etag;
+        final String content;
+        final long weight;
+
+        Entry(String etag, String content, long weight) {
+            this.etag = etag;
+            this.content = content;
+            this.weight = weight;
+        }
+    }
+}
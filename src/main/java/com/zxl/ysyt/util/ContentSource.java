@@ -0,0 +1,46 @@
+package com.zxl.ysyt.util;
+
+import io.minio.ObjectStat;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 17:05
+ *
+ * 一次读取实际要用的对象：有 UTF-8 副本时是副本，否则是原始文件，字节偏移都是相对这个对象的
+ */
+public class ContentSource {
+
+    private final ObjectLocation location;
+    private final String charset;
+    private final ObjectStat stat;
+
+    public ContentSource(ObjectLocation location, String charset, ObjectStat stat) {
+        this.location = location;
+        this.charset = charset;
+        this.stat = stat;
+    }
+
+    public ObjectLocation getLocation() {
+        return location;
+    }
+
+    public String getCharset() {
+        return charset;
+    }
+
+    public long size() {
+        return stat.length();
+    }
+
+    public String etag() {
+        return stat.etag();
+    }
+
+    /**
+     * 这份文本来自哪个版本的原始文件：副本取记录的 source-etag，原始文件（或没有记录的老副本）就是自己的 ETag
+     */
+    public String originEtag() {
+        String source = TxtVariants.sourceEtag(stat);
+        return source != null ? source : stat.etag();
+    }
+}
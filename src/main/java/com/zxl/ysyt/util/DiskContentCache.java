@@ -0,0 +1,237 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.ContentConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 16:10
+ *
+ * 图书内容的本地磁盘缓存，是内存缓存之下的第二层
+ * txt 桶里的对象第一次被读到时在后台整份下载到本地目录，之后直接从本地文件读，不再经过 minio，也不占用堆内存
+ * 文件名是 “对象位置 + ETag” 的摘要，文件被覆盖后自然就是一个新文件，旧文件随 LRU 淘汰
+ * 下载先写临时文件，刷盘后再原子改名，进程崩溃最多留下几个 .tmp，启动时清掉；下载时带上 If-Match，
+ * 对象在请求之后被覆盖的话 minio 直接拒绝，不会把新内容存成旧 ETag 的文件
+ * 交给 Tomcat sendfile 的文件要等响应写出时才会被打开，用 lease 登记一段租期，租期内淘汰时跳过它
+ */
+@Slf4j
+@Component
+public class DiskContentCache {
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    //sendfile 一般在请求线程返回后马上打开文件，打开以后再删除不影响已经打开的句柄，租期留得宽一些
+    private static final long LEASE_MILLIS = 60 * 1000L;
+
+    private final boolean enabled;
+
+    private final Path dir;
+
+    private final long maxBytes;
+
+    @Autowired
+    private MinioUtil minioUtil;
+
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long totalBytes;
+
+    //文件名 -> 租期到期时间，只在持有锁时读写
+    private final Map<String, Long> leases = new HashMap<>();
+
+    //正在下载的文件，避免同一个对象被重复下载
+    private final Set<String> spooling = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(64), r -> {
+        Thread t = new Thread(r, "content-spool");
+        t.setDaemon(true);
+        return t;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public DiskContentCache(ContentConfig contentConfig) {
+        this.enabled = contentConfig.getDisk().isEnabled();
+        this.dir = Paths.get(contentConfig.getDisk().getDir());
+        this.maxBytes = contentConfig.getDisk().getMaxBytes();
+    }
+
+    /**
+     * 启动时清理上次没写完的临时文件，并按修改时间把已有文件登记到 LRU 里
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(dir);
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.forEach(existing::add);
+        }
+        existing.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+        synchronized (this) {
+            for (Path path : existing) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    Files.deleteIfExists(path);
+                } else {
+                    long size = Files.size(path);
+                    files.put(name, size);
+                    totalBytes += size;
+                }
+            }
+            evict();
+        }
+    }
+
+    /**
+     * 查找本地文件，没有的话在后台开始下载，本次请求仍由调用方从 minio 读取
+     *
+     * @param location 对象位置
+     * @param etag     对象当前的 ETag
+     * @return 本地文件，未命中返回 null
+     */
+    public Path get(ObjectLocation location, String etag) {
+        if (!enabled || !MinioConstant.BUCKET_NAME_Txt.equals(location.getBucket())) {
+            return null;
+        }
+        return find(location, etag, false);
+    }
+
+    /**
+     * 同 get，命中时给文件登记 LEASE_MILLIS 的租期，租期内不会被淘汰，用于把文件路径交给 Tomcat sendfile 的情况
+     */
+    public Path lease(ObjectLocation location, String etag) {
+        if (!enabled || !MinioConstant.BUCKET_NAME_Txt.equals(location.getBucket())) {
+            return null;
+        }
+        return find(location, etag, true);
+    }
+
+    private Path find(ObjectLocation location, String etag, boolean lease) {
+        String name = fileName(location, etag);
+        synchronized (this) {
+            if (files.get(name) != null) {
+                hits.incrementAndGet();
+                if (lease) {
+                    leases.put(name, System.currentTimeMillis() + LEASE_MILLIS);
+                }
+                return dir.resolve(name);
+            }
+        }
+        misses.incrementAndGet();
+        if (spooling.add(name)) {
+            try {
+                executor.execute(() -> spool(location, etag, name));
+            } catch (RejectedExecutionException e) {
+                spooling.remove(name);
+            }
+        }
+        return null;
+    }
+
+    private void spool(ObjectLocation location, String etag, String name) {
+        Path tmp = dir.resolve(name + "." + UUID.randomUUID().toString().replace("-", "") + TMP_SUFFIX);
+        try {
+            long size;
+            try (InputStream in = minioUtil.getObjectIfMatch(location.getBucket(), location.getObject(), etag);
+                 FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                size = channel.transferFrom(Channels.newChannel(in), 0, Long.MAX_VALUE);
+                channel.force(true);
+            }
+            Files.move(tmp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            synchronized (this) {
+                Long old = files.put(name, size);
+                totalBytes += size - (old == null ? 0 : old);
+                evict();
+            }
+            spooled.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("缓存 {} 到本地磁盘失败", location, e);
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+        } finally {
+            spooling.remove(name);
+        }
+    }
+
+    //调用方需持有锁；正在被读取的文件删掉也没关系，已经打开的句柄仍然有效；还在租期内的文件跳过，暂时超出上限也可以
+    private void evict() {
+        long now = System.currentTimeMillis();
+        leases.values().removeIf(expiresAt -> expiresAt <= now);
+        Iterator<Map.Entry<String, Long>> it = files.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (leases.containsKey(eldest.getKey())) {
+                continue;
+            }
+            it.remove();
+            totalBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(dir.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("删除缓存文件 {} 失败", eldest.getKey(), e);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", files.size());
+            stats.put("bytes", totalBytes);
+            stats.put("leases", leases.size());
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("spooled", spooled.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    static String fileName(ObjectLocation location, String etag) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest((location + "\n" + etag).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
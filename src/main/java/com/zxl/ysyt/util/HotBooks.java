@@ -0,0 +1,212 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.lang.HotBook;
+import com.zxl.ysyt.pojo.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 00:20
+ *
+ * 实时热门图书榜：最近一小时里被打开最多的书
+ * 时间窗口切成 BUCKETS 个桶，每个桶里一个 Count-Min Sketch 估计每本书的次数，再用 Space-Saving 记下这个桶里的热门候选；
+ * 桶定时轮换，最老的桶清空后重新使用，所以不管读过多少种书，占用的内存都是固定的
+ * 榜单定时重算一次，接口直接返回算好的前 K 名
+ */
+@Component
+public class HotBooks {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    public static final int TOP_K = 50;
+
+    private static final int BUCKETS = 12;
+
+    private static final long BUCKET_MILLIS = 5 * 60 * 1000L;      //12 个 5 分钟，共一小时
+
+    private static final int DEPTH = 4;
+
+    private static final int WIDTH = 2048;        //2 的幂，取模用位运算
+
+    private static final int CANDIDATES = 100;    //每个桶里 Space-Saving 跟踪的候选数
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    private final Bucket[] buckets = new Bucket[BUCKETS];
+
+    private volatile int current;
+
+    private volatile List<HotBook> ranking = Collections.emptyList();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    public HotBooks() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 记一次打开，只改当前桶：DEPTH 次原子加，加一次很短的加锁
+     */
+    public void hit(String bid) {
+        if (bid == null) {
+            return;
+        }
+        buckets[current].add(bid);
+        hits.incrementAndGet();
+    }
+
+    /**
+     * @return 前 limit 名，直接截取算好的榜单
+     */
+    public List<HotBook> top(int limit) {
+        List<HotBook> list = ranking;
+        return list.subList(0, Math.min(Math.max(limit, 0), list.size()));
+    }
+
+    @Scheduled(initialDelay = BUCKET_MILLIS, fixedRate = BUCKET_MILLIS)
+    public void rotate() {
+        int next = (current + 1) % BUCKETS;
+        buckets[next].clear();
+        current = next;
+    }
+
+    /**
+     * 所有桶的候选合在一起，每个候选用各桶 sketch 的估计值相加作为得分，取前 TOP_K
+     */
+    @Scheduled(initialDelay = 10 * 1000L, fixedDelay = 10 * 1000L)
+    public void refresh() {
+        Set<String> candidates = new HashSet<>();
+        for (Bucket bucket : buckets) {
+            bucket.candidates(candidates);
+        }
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(TOP_K + 1, Map.Entry.comparingByValue());
+        for (String bid : candidates) {
+            long score = 0;
+            for (Bucket bucket : buckets) {
+                score += bucket.estimate(bid);
+            }
+            top.offer(new AbstractMap.SimpleEntry<>(bid, score));
+            if (top.size() > TOP_K) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(top);
+        sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+        List<String> ids = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, Long> entry : sorted) {
+            ids.add(entry.getKey());
+        }
+        List<Book> books = catalogSnapshot.findByIds(ids);
+        List<HotBook> result = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Book book = books.get(i);
+            if (book == null) {
+                continue;      //已经删除的书
+            }
+            HotBook hot = new HotBook();
+            hot.setId(book.getId());
+            hot.setBname(book.getBname());
+            hot.setAuthor(book.getAuthor());
+            hot.setCover(book.getCover());
+            hot.setScore(sorted.get(i).getValue());
+            result.add(hot);
+        }
+        ranking = Collections.unmodifiableList(result);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("ranked", ranking.size());
+        stats.put("windowMillis", BUCKETS * BUCKET_MILLIS);
+        stats.put("sketchBytes", (long) BUCKETS * DEPTH * WIDTH * 4);
+        return stats;
+    }
+
+    private static class Bucket {
+        private final AtomicIntegerArray sketch = new AtomicIntegerArray(DEPTH * WIDTH);
+
+        //Space-Saving：候选满了以后，sketch 估计值超过最小计数的新书顶替计数最小的候选，并继承它的计数作为误差上限
+        private final Map<String, Long> counts = new HashMap<>();
+
+        //候选里最小计数的下限；sketch 估计值不超过它的书不可能挤进候选，不用扫描
+        private long minHint;
+
+        void add(String bid) {
+            int h1 = spread(bid.hashCode());
+            int h2 = spread(h1 ^ 0x5bd1e995) | 1;
+            long estimate = Long.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                estimate = Math.min(estimate, sketch.incrementAndGet(i * WIDTH + ((h1 + i * h2) & (WIDTH - 1))));
+            }
+            synchronized (counts) {
+                Long count = counts.get(bid);
+                if (count != null) {
+                    counts.put(bid, count + 1);
+                } else if (counts.size() < CANDIDATES) {
+                    counts.put(bid, 1L);
+                } else if (estimate > minHint) {
+                    String min = null;
+                    long minCount = Long.MAX_VALUE;
+                    for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                        if (entry.getValue() < minCount) {
+                            min = entry.getKey();
+                            minCount = entry.getValue();
+                        }
+                    }
+                    minHint = minCount;
+                    if (estimate > minCount) {
+                        counts.remove(min);
+                        counts.put(bid, minCount + 1);
+                    }
+                }
+            }
+        }
+
+        long estimate(String bid) {
+            int h1 = spread(bid.hashCode());
+            int h2 = spread(h1 ^ 0x5bd1e995) | 1;
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, sketch.get(i * WIDTH + ((h1 + i * h2) & (WIDTH - 1))));
+            }
+            return min;
+        }
+
+        void candidates(Set<String> into) {
+            synchronized (counts) {
+                into.addAll(counts.keySet());
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < sketch.length(); i++) {
+                sketch.set(i, 0);
+            }
+            synchronized (counts) {
+                counts.clear();
+                minHint = 0;
+            }
+        }
+
+        //murmur3 的 fmix32，把 String.hashCode 打散
+        private static int spread(int h) {
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package com.zxl.ysyt.util;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 19:20
+ *
+ * 图书正文的倒排索引，全部在内存里
+ * 正文按 SEGMENT_CHARS 个字符左右切成片段，以片段为单位建倒排表，搜索结果就是命中的片段，摘要直接从片段里截取
+ * 分词：连续的汉字（以及假名、谚文）切成相邻两字的二元组，只有一个字时保留单字；字母数字按整词、转小写；全角字母数字先转半角
+ * 排序用 BM25，查询词原样出现在片段里的再加权，保证整句命中的排在前面
+ * 删除只做标记，作废的片段超过 COMPACT_MIN_SEGMENTS 且占到活片段的 1/4 以上时整理一次，把它们的倒排条目和片段表一起回收
+ */
+public class InvertedIndex {
+
+    static final int SEGMENT_CHARS = 240;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final double PHRASE_BOOST = 1.5;
+
+    private static final int SNIPPET_CHARS = 100;
+
+    static final int COMPACT_MIN_SEGMENTS = 4096;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    //片段表：片段 id 就是下标，依次是所属文档、起始字符、字符数
+    private IntList segDoc = new IntList();
+    private IntList segStart = new IntList();
+    private IntList segLength = new IntList();
+
+    private List<Doc> docs = new ArrayList<>();
+
+    private final Map<String, Integer> docByKey = new HashMap<>();
+
+    private long liveSegments;
+
+    private long liveChars;
+
+    private long deadSegments;
+
+    /**
+     * 加入一份文档，同一个 key 再次加入时旧的作废
+     * 分词在锁外完成，只有合并倒排表时短暂加写锁，不影响正在进行的搜索
+     *
+     * @param key  文档标识（图书 id）
+     * @param text 正文
+     */
+    public void add(String key, String text) {
+        Prepared prepared = prepare(text);
+
+        lock.writeLock().lock();
+        try {
+            Integer old = docByKey.get(key);
+            if (old != null) {
+                remove(old);
+            }
+            int docId = docs.size();
+            int base = segDoc.size();
+            for (int i = 0; i < prepared.segmentCount(); i++) {
+                segDoc.add(docId);
+                segStart.add(prepared.starts.get(i));
+                segLength.add(prepared.lengths.get(i));
+            }
+            //记下这份文档用到的倒排表和各自贡献的 df，删除时直接扣减，不用再分一遍词
+            Postings[] used = new Postings[prepared.terms.size()];
+            int[] dfs = new int[used.length];
+            int t = 0;
+            for (Map.Entry<String, IntList[]> e : prepared.terms.entrySet()) {
+                Postings p = postings.computeIfAbsent(e.getKey(), k -> new Postings());
+                IntList segs = e.getValue()[0];
+                IntList tfs = e.getValue()[1];
+                for (int i = 0; i < segs.size(); i++) {
+                    p.segments.add(base + segs.get(i));
+                    p.tfs.add(tfs.get(i));
+                }
+                p.df += segs.size();
+                used[t] = p;
+                dfs[t++] = segs.size();
+            }
+            docs.add(new Doc(key, text, prepared.segmentCount(), used, dfs));
+            docByKey.put(key, docId);
+            liveSegments += prepared.segmentCount();
+            liveChars += text.length();
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 作废一份文档，倒排表里的条目先留着，搜索时跳过，攒够了再统一整理；df 同步扣减，保证打分不受影响
+     */
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docByKey.remove(key);
+            if (docId != null) {
+                remove(docId);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //调用方需持有写锁
+    private void remove(int docId) {
+        Doc doc = docs.get(docId);
+        if (doc.deleted) {
+            return;
+        }
+        for (int i = 0; i < doc.postings.length; i++) {
+            doc.postings[i].df -= doc.dfs[i];
+        }
+        liveSegments -= doc.segments;
+        liveChars -= doc.text.length();
+        deadSegments += doc.segments;
+        docs.set(docId, Doc.DELETED);   //正文和词表不再需要，释放掉
+    }
+
+    //调用方需持有写锁
+    private void compactIfNeeded() {
+        if (deadSegments >= COMPACT_MIN_SEGMENTS && deadSegments * 4 >= liveSegments) {
+            compact();
+        }
+    }
+
+    /**
+     * 去掉作废文档的片段和倒排条目，活着的片段按原来的顺序重新编号，倒排表仍然有序
+     * 调用方需持有写锁
+     */
+    void compact() {
+        int[] docMap = new int[docs.size()];
+        List<Doc> liveDocs = new ArrayList<>(docByKey.size());
+        for (int i = 0; i < docs.size(); i++) {
+            Doc doc = docs.get(i);
+            if (doc.deleted) {
+                docMap[i] = -1;
+            } else {
+                docMap[i] = liveDocs.size();
+                liveDocs.add(doc);
+            }
+        }
+        int[] segMap = new int[segDoc.size()];
+        IntList newDoc = new IntList();
+        IntList newStart = new IntList();
+        IntList newLength = new IntList();
+        for (int seg = 0; seg < segMap.length; seg++) {
+            int docId = docMap[segDoc.get(seg)];
+            if (docId < 0) {
+                segMap[seg] = -1;
+                continue;
+            }
+            segMap[seg] = newDoc.size();
+            newDoc.add(docId);
+            newStart.add(segStart.get(seg));
+            newLength.add(segLength.get(seg));
+        }
+        Iterator<Postings> it = postings.values().iterator();
+        while (it.hasNext()) {
+            Postings p = it.next();
+            IntList segments = new IntList();
+            IntList tfs = new IntList();
+            for (int i = 0; i < p.segments.size(); i++) {
+                int seg = segMap[p.segments.get(i)];
+                if (seg >= 0) {
+                    segments.add(seg);
+                    tfs.add(p.tfs.get(i));
+                }
+            }
+            if (segments.size() == 0) {
+                it.remove();        //只出现在作废文档里的词，活文档不会再引用它
+            } else {
+                p.segments = segments;
+                p.tfs = tfs;
+            }
+        }
+        for (Map.Entry<String, Integer> e : docByKey.entrySet()) {
+            e.setValue(docMap[e.getValue()]);
+        }
+        docs = liveDocs;
+        segDoc = newDoc;
+        segStart = newStart;
+        segLength = newLength;
+        deadSegments = 0;
+    }
+
+    /**
+     * @param query 查询语句
+     * @param limit 最多返回几条
+     * @return 按得分从高到低排好的命中片段
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String phrase = query.trim();
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings p = postings.get(term);
+                if (p == null || p.df <= 0) {
+                    return Collections.emptyList();     //所有词都要出现，缺一个就不可能命中
+                }
+                lists.add(p);
+            }
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int df = lists.get(i).df;
+                idf[i] = Math.log(1 + (liveSegments - df + 0.5) / (df + 0.5));
+            }
+            Integer[] order = new Integer[lists.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> lists.get(i).segments.size()));    //从最短的倒排表开始求交集
+            double avgLength = liveSegments == 0 ? 1 : (double) liveChars / liveSegments;
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Hit::getScore));
+            Postings shortest = lists.get(order[0]);
+            int[] cursors = new int[lists.size()];
+            outer:
+            for (int i = 0; i < shortest.segments.size(); i++) {
+                int seg = shortest.segments.get(i);
+                Doc doc = docs.get(segDoc.get(seg));
+                if (doc.deleted) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * segLength.get(seg) / avgLength);
+                double score = 0;
+                for (int k = 0; k < order.length; k++) {
+                    Postings p = lists.get(order[k]);
+                    int pos = k == 0 ? i : p.segments.seek(seg, cursors[k]);
+                    if (pos < 0) {
+                        if (pos == IntList.EXHAUSTED) {
+                            break outer;
+                        }
+                        cursors[k] = -pos - 1;
+                        continue outer;
+                    }
+                    cursors[k] = pos;
+                    int tf = p.tfs.get(pos);
+                    score += idf[order[k]] * tf * (K1 + 1) / (tf + norm);
+                }
+                int start = segStart.get(seg);
+                int end = start + segLength.get(seg);
+                if (containsIgnoreCase(doc.text, start, end, phrase)) {
+                    score *= PHRASE_BOOST;
+                }
+                top.offer(new Hit(doc.key, start, end - start, score, null));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+            List<Hit> result = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                Doc doc = docs.get(docByKey.get(hit.key));
+                result.add(new Hit(hit.key, hit.offset, hit.length, hit.score,
+                        snippet(doc.text, hit.offset, hit.offset + hit.length, phrase, terms)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("documents", docByKey.size());
+            stats.put("segments", liveSegments);
+            stats.put("deadSegments", deadSegments);
+            stats.put("chars", liveChars);
+            stats.put("terms", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    public long chars() {
+        lock.readLock().lock();
+        try {
+            return liveChars;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return docByKey.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 切片段并统计每个片段里的词频
+     * 片段边界不切断字母数字组成的词；分词时多看边界后的一个字，跨边界的二元组也能被索引到
+     */
+    static Prepared prepare(String text) {
+        Prepared prepared = new Prepared();
+        int len = text.length();
+        int start = 0;
+        while (start < len) {
+            int end = Math.min(start + SEGMENT_CHARS, len);
+            while (end < len && isWordChar(text.charAt(end - 1)) && isWordChar(text.charAt(end))) {
+                end++;
+            }
+            int seg = prepared.segmentCount();
+            prepared.starts.add(start);
+            prepared.lengths.add(end - start);
+
+            Map<String, Integer> tf = new HashMap<>();
+            tokenize(text, start, Math.min(end + 1, len), term -> tf.merge(term, 1, Integer::sum));
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                IntList[] lists = prepared.terms.computeIfAbsent(e.getKey(), k -> new IntList[]{new IntList(), new IntList()});
+                lists[0].add(seg);
+                lists[1].add(e.getValue());
+            }
+            start = end;
+        }
+        return prepared;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, 0, text.length(), terms::add);
+        return terms;
+    }
+
+    static void tokenize(String text, int from, int to, TermSink sink) {
+        int i = from;
+        while (i < to) {
+            char c = normalize(text.charAt(i));
+            if (isCjk(c)) {
+                int j = i + 1;
+                while (j < to && isCjk(normalize(text.charAt(j)))) {
+                    j++;
+                }
+                if (j - i == 1) {
+                    sink.term(String.valueOf(c));
+                } else {
+                    for (int k = i; k < j - 1; k++) {
+                        sink.term(new String(new char[]{normalize(text.charAt(k)), normalize(text.charAt(k + 1))}));
+                    }
+                }
+                i = j;
+            } else if (isWordChar(c)) {
+                StringBuilder word = new StringBuilder();
+                int j = i;
+                while (j < to && isWordChar(normalize(text.charAt(j)))) {
+                    word.append(normalize(text.charAt(j)));
+                    j++;
+                }
+                sink.term(word.toString());
+                i = j;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    //全角字母数字转半角，再转小写
+    static char normalize(char c) {
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static boolean isWordChar(char c) {
+        c = normalize(c);
+        return Character.isLetterOrDigit(c) && !isCjk(c);
+    }
+
+    private static boolean containsIgnoreCase(String text, int start, int end, String phrase) {
+        if (phrase.isEmpty()) {
+            return false;
+        }
+        int last = Math.min(end + phrase.length() - 1, text.length()) - phrase.length();
+        for (int i = start; i <= last; i++) {
+            if (text.regionMatches(true, i, phrase, 0, phrase.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从片段附近截取一段摘要，命中的词用 <em> 包起来，其余字符做 HTML 转义
+     */
+    static String snippet(String text, int segStart, int segEnd, String phrase, List<String> terms) {
+        int anchor = indexOfIgnoreCase(text, phrase, segStart, segEnd);
+        for (int i = 0; anchor < 0 && i < terms.size(); i++) {
+            anchor = indexOfIgnoreCase(text, terms.get(i), segStart, segEnd);
+        }
+        if (anchor < 0) {
+            anchor = segStart;
+        }
+        int from = Math.max(0, anchor - SNIPPET_CHARS / 3);
+        int to = Math.min(text.length(), from + SNIPPET_CHARS);
+
+        boolean[] marked = new boolean[to - from];
+        List<String> needles = new ArrayList<>(terms);
+        needles.add(phrase);
+        for (String needle : needles) {
+            if (needle.isEmpty()) {
+                continue;
+            }
+            for (int i = from; i + needle.length() <= to; i++) {
+                if (matches(text, i, needle)) {
+                    Arrays.fill(marked, i - from, i - from + needle.length(), true);
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(SNIPPET_CHARS + 32);
+        if (from > 0) {
+            sb.append("…");
+        }
+        for (int i = from; i < to; i++) {
+            boolean m = marked[i - from];
+            if (m && (i == from || !marked[i - from - 1])) {
+                sb.append("<em>");
+            }
+            escape(sb, text.charAt(i));
+            if (m && (i + 1 == to || !marked[i - from + 1])) {
+                sb.append("</em>");
+            }
+        }
+        if (to < text.length()) {
+            sb.append("…");
+        }
+        return sb.toString();
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from, int to) {
+        if (needle.isEmpty()) {
+            return -1;
+        }
+        for (int i = from; i < to && i + needle.length() <= text.length(); i++) {
+            if (matches(text, i, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //按分词时同样的规则比较，全角半角、大小写都不区分
+    private static boolean matches(String text, int offset, String needle) {
+        for (int k = 0; k < needle.length(); k++) {
+            if (normalize(text.charAt(offset + k)) != normalize(needle.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void escape(StringBuilder sb, char c) {
+        switch (c) {
+            case '<':
+                sb.append("&lt;");
+                break;
+            case '>':
+                sb.append("&gt;");
+                break;
+            case '&':
+                sb.append("&amp;");
+                break;
+            case '"':
+                sb.append("&quot;");
+                break;
+            default:
+                sb.append(c);
+        }
+    }
+
+    interface TermSink {
+        void term(String term);
+    }
+
+    /**
+     * 一个命中的片段
+     */
+    public static class Hit {
+        private final String key;
+        private final int offset;      //片段在正文里的起始字符
+        private final int length;      //片段的字符数
+        private final double score;
+        private final String snippet;
+
+        Hit(String key, int offset, int length, double score, String snippet) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+            this.score = score;
+            this.snippet = snippet;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public String getSnippet() {
+            return snippet;
+        }
+    }
+
+    static class Prepared {
+        final IntList starts = new IntList();
+        final IntList lengths = new IntList();
+        final Map<String, IntList[]> terms = new HashMap<>();
+
+        int segmentCount() {
+            return starts.size();
+        }
+    }
+
+    private static class Doc {
+        static final Doc DELETED = new Doc(null, "", 0, new Postings[0], new int[0], true);
+
+        final String key;
+        final String text;
+        final int segments;
+        final Postings[] postings;     //这份文档出现过的词对应的倒排表
+        final int[] dfs;               //以及在每个倒排表里占了几个片段
+        final boolean deleted;
+
+        Doc(String key, String text, int segments, Postings[] postings, int[] dfs) {
+            this(key, text, segments, postings, dfs, false);
+        }
+
+        private Doc(String key, String text, int segments, Postings[] postings, int[] dfs, boolean deleted) {
+            this.key = key;
+            this.text = text;
+            this.segments = segments;
+            this.postings = postings;
+            this.dfs = dfs;
+            this.deleted = deleted;
+        }
+    }
+
+    //片段 id 是递增分配的，所以每个倒排表天然有序，求交集时可以二分；整理时保持相对顺序重新编号，仍然有序
+    private static class Postings {
+        IntList segments = new IntList();
+        IntList tfs = new IntList();
+        int df;
+    }
+
+    static class IntList {
+        static final int EXHAUSTED = Integer.MIN_VALUE;
+
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * 从 from 开始二分查找 value
+         *
+         * @return 找到时返回下标；找不到返回 -(插入点) - 1；插入点已经到末尾返回 EXHAUSTED
+         */
+        int seek(int value, int from) {
+            int pos = Arrays.binarySearch(values, from, size, value);
+            if (pos < 0 && -pos - 1 >= size) {
+                return EXHAUSTED;
+            }
+            return pos;
+        }
+    }
+}
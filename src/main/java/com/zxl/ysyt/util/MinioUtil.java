@@ -18,6 +18,7 @@ import java.rmi.ServerException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -198,6 +199,36 @@ public class MinioUtil {
         return listObjectNames;
     }
 
+    /**
+     * 递归列出存储桶中某个前缀下的所有对象名称
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     对象名前缀，例如 utf8/
+     * @return
+     * @throws IOException
+     * @throws XmlParserException
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidResponseException
+     * @throws InvalidBucketNameException
+     * @throws InternalException
+     * @throws InsufficientDataException
+     * @throws IllegalArgumentException
+     * @throws ErrorResponseException
+     * @throws InvalidKeyException
+     */
+    public List<String> listObjectNames(String bucketName, String prefix) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException, io.minio.errors.ServerException {
+        List<String> listObjectNames = new ArrayList<>();
+        Iterable<Result<Item>> myObjects = minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .recursive(true)
+                .build());
+        for (Result<Item> result : myObjects) {
+            listObjectNames.add(result.get().objectName());
+        }
+        return listObjectNames;
+    }
+
     /**
      * 列出存储桶中的所有对象
      *
@@ -242,6 +273,15 @@ public class MinioUtil {
      * @throws InvalidKeyException
      */
     public boolean putObject(String bucketName, String objectName, InputStream stream, String contentType) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException, io.minio.errors.ServerException {
+        return putObject(bucketName, objectName, stream, contentType, Collections.emptyMap());
+    }
+
+    /**
+     * 同上，同时写入用户元数据（minio 会给名字加上 x-amz-meta- 前缀）
+     *
+     * @param userMetadata 用户元数据
+     */
+    public boolean putObject(String bucketName, String objectName, InputStream stream, String contentType, Map<String, String> userMetadata) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException, io.minio.errors.ServerException {
 
         boolean flag = bucketExists(bucketName);
 
@@ -249,6 +289,7 @@ public class MinioUtil {
             minioClient.putObject( PutObjectArgs.builder().bucket(bucketName).object(objectName).stream(
                     stream, stream.available(), -1)
                     .contentType(contentType)
+                    .userMetadata(userMetadata)
                     .build());
             ObjectStat statObject = statObject(bucketName, objectName);
             if (statObject != null && statObject.length() > 0) {
@@ -277,16 +318,23 @@ public class MinioUtil {
      */
     public InputStream getObject(String bucketName, String objectName) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException, io.minio.errors.ServerException {
 
-        boolean flag = bucketExists(bucketName);
+        // 存储桶或对象不存在时 minio 会直接抛 ErrorResponseException，不需要再先查一遍
+        return minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(objectName).build());
+    }
 
-        if (flag) {
-            ObjectStat statObject = statObject(bucketName, objectName);
-            if (statObject != null && statObject.length() > 0) {
-                InputStream stream = minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(objectName).build());
-                return stream;
-            }
-        }
-        return null;
+    /**
+     * 以流的形式获取一个文件对象，只有对象的 ETag 仍然是 etag 时才返回，否则 minio 答复 412（ErrorResponseException）
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 存储桶里的对象名称
+     * @param etag       期望的 ETag，带不带引号都可以
+     * @return
+     * @throws ErrorResponseException 对象不存在或者已经被覆盖
+     */
+    public InputStream getObjectIfMatch(String bucketName, String objectName, String etag) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException, io.minio.errors.ServerException {
+
+        String quoted = etag.startsWith("\"") ? etag : "\"" + etag + "\"";
+        return minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(objectName).matchETag(quoted).build());
     }
 
     /**
@@ -310,15 +358,13 @@ public class MinioUtil {
      */
     public InputStream getObject(String bucketName, String objectName, long offset, Long length) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException, io.minio.errors.ServerException {
 
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            ObjectStat statObject = statObject(bucketName, objectName);
-            if (statObject != null && statObject.length() > 0) {
-                InputStream stream = minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(objectName).build());
-                return stream;
-            }
-        }
-        return null;
+        // 只向 minio 请求 [offset, offset + length) 这一段，偏移超出对象大小时 minio 会返回 InvalidRange
+        return minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .offset(offset)
+                .length(length)
+                .build());
     }
 
     /**
@@ -511,14 +557,10 @@ public class MinioUtil {
      * @throws InvalidKeyException
      */
     public ObjectStat statObject(String bucketName, String objectName) throws IOException, InvalidResponseException, InvalidKeyException, NoSuchAlgorithmException, ServerException, ErrorResponseException, XmlParserException, InvalidBucketNameException, InsufficientDataException, InternalException, io.minio.errors.ServerException {
-        boolean flag = bucketExists(bucketName);
-        if (flag) {
-            ObjectStat statObject = minioClient.statObject(StatObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName).build());
-            return statObject;
-        }
-        return null;
+        ObjectStat statObject = minioClient.statObject(StatObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName).build());
+        return statObject;
     }
 
     /**
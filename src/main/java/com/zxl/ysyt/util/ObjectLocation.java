@@ -0,0 +1,72 @@
+package com.zxl.ysyt.util;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLDecoder;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 14:02
+ *
+ * 数据库里存的是 http://host:9000/txt/百年孤独.txt 这样的完整地址，
+ * 通过 minio 客户端读取时需要拆成存储桶和对象名
+ */
+public class ObjectLocation {
+
+    private final String bucket;
+    private final String object;
+
+    public ObjectLocation(String bucket, String object) {
+        this.bucket = bucket;
+        this.object = object;
+    }
+
+    public static ObjectLocation fromUrl(String url) {
+        String path;
+        try {
+            path = new URL(url).getPath();
+            path = URLDecoder.decode(path.replace("+", "%2B"), "UTF-8");
+        } catch (MalformedURLException | UnsupportedEncodingException e) {
+            throw new IllegalArgumentException("无效的文件地址：" + url, e);
+        }
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        int slash = path.indexOf('/');
+        if (slash <= 0 || slash == path.length() - 1) {
+            throw new IllegalArgumentException("无效的文件地址：" + url);
+        }
+        return new ObjectLocation(path.substring(0, slash), path.substring(slash + 1));
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getObject() {
+        return object;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ObjectLocation)) {
+            return false;
+        }
+        ObjectLocation that = (ObjectLocation) o;
+        return bucket.equals(that.bucket) && object.equals(that.object);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * bucket.hashCode() + object.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return bucket + "/" + object;
+    }
+}
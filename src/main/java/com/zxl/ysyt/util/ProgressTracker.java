@@ -0,0 +1,150 @@
+package com.zxl.ysyt.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.zxl.ysyt.config.ProgressConfig;
+import com.zxl.ysyt.mapper.ReadingProgressMapper;
+import com.zxl.ysyt.pojo.ReadingProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 23:00
+ *
+ * 阅读进度的后写（write-behind）：客户端每隔几秒上报一次，上报只改内存，同一个 (用户, 图书) 只保留最新的一条
+ * 定时把改过的进度用多值 insert 分批写库，两次写库之间同一本书上报多少次都只写一行；读取先看内存，最新值立刻可见
+ * 进程正常退出时会把剩下的写完，异常退出最多丢掉最后一个写库周期内的进度
+ */
+@Slf4j
+@Component
+public class ProgressTracker {
+
+    private final int batchSize;
+
+    private final int maxEntries;
+
+    @Autowired
+    private ReadingProgressMapper readingProgressMapper;
+
+    //最近上报或读过的进度，读取直接用
+    private final ConcurrentHashMap<String, ReadingProgress> recent = new ConcurrentHashMap<>();
+
+    //还没写库的进度，和 recent 里是同一个对象
+    private final ConcurrentHashMap<String, ReadingProgress> dirty = new ConcurrentHashMap<>();
+
+    private final AtomicLong reports = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public ProgressTracker(ProgressConfig progressConfig) {
+        this.batchSize = progressConfig.getBatchSize();
+        this.maxEntries = progressConfig.getMaxEntries();
+    }
+
+    /**
+     * 记录一次上报，只改内存
+     */
+    public ReadingProgress report(String uid, String bid, long position, String charset, Integer chapter) {
+        ReadingProgress progress = new ReadingProgress(uid, bid, position, charset, chapter, new Date());
+        String key = key(uid, bid);
+        dirty.put(key, progress);      //先进 dirty 再进 recent，trim 就不会把刚上报的丢掉
+        recent.put(key, progress);
+        reports.incrementAndGet();
+        return progress;
+    }
+
+    /**
+     * @return 最新的进度，从来没有上报过返回 null
+     */
+    public ReadingProgress get(String uid, String bid) {
+        String key = key(uid, bid);
+        ReadingProgress progress = recent.get(key);
+        if (progress != null) {
+            return progress;
+        }
+        progress = readingProgressMapper.selectOne(new QueryWrapper<ReadingProgress>()
+                .eq("uid", uid).eq("bid", bid));
+        if (progress != null) {
+            ReadingProgress raced = recent.putIfAbsent(key, progress);
+            return raced != null ? raced : progress;      //查库期间刚好有上报，以上报的为准
+        }
+        return null;
+    }
+
+    @Scheduled(initialDelayString = "${progress.flush-interval-millis:10000}",
+            fixedDelayString = "${progress.flush-interval-millis:10000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            trim();
+            return;
+        }
+        List<ReadingProgress> pending = new ArrayList<>(dirty.size());
+        for (Map.Entry<String, ReadingProgress> entry : dirty.entrySet()) {
+            //只有值没被新的上报换掉时才摘下来；换掉了就留到下一轮，写的总是最新值
+            if (dirty.remove(entry.getKey(), entry.getValue())) {
+                pending.add(entry.getValue());
+            }
+        }
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<ReadingProgress> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                readingProgressMapper.upsertBatch(batch);
+                rowsWritten.addAndGet(batch.size());
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                log.warn("写入 {} 条阅读进度失败，下一轮重试", batch.size(), e);
+                for (ReadingProgress progress : batch) {
+                    dirty.putIfAbsent(key(progress.getUid(), progress.getBid()), progress);
+                }
+            }
+        }
+        flushes.incrementAndGet();
+        trim();
+    }
+
+    //已经写库的进度太多时丢掉一部分，读的时候再查库；只在 flush 里调用
+    private void trim() {
+        if (recent.size() <= maxEntries) {
+            return;
+        }
+        Iterator<Map.Entry<String, ReadingProgress>> it = recent.entrySet().iterator();
+        while (recent.size() > maxEntries * 3 / 4 && it.hasNext()) {
+            Map.Entry<String, ReadingProgress> entry = it.next();
+            if (!dirty.containsKey(entry.getKey())) {
+                recent.remove(entry.getKey(), entry.getValue());     //这期间又有上报的话值已经变了，不会删掉
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long r = reports.get();
+        long w = rowsWritten.get();
+        stats.put("entries", recent.size());
+        stats.put("pending", dirty.size());
+        stats.put("reports", r);
+        stats.put("rowsWritten", w);
+        stats.put("writeRatio", r == 0 ? 0 : (double) w / r);
+        stats.put("flushes", flushes.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    private static String key(String uid, String bid) {
+        return uid + "\n" + bid;
+    }
+}
@@ -0,0 +1,45 @@
+package com.zxl.ysyt.util;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 21:00
+ *
+ * 把请求里的 fields=a,b,c 转换成 SQL 要查的列，只允许白名单里的字段
+ */
+public final class Projection {
+
+    private Projection() {
+    }
+
+    /**
+     * @param fields   逗号分隔的属性名，为空时用 defaults
+     * @param allowed  属性名到列名的白名单
+     * @param defaults 没有指定 fields 时查的属性
+     * @param required 翻页必须的属性（比如 id），总会带上
+     * @return 列名
+     * @throws IllegalArgumentException 有不在白名单里的字段
+     */
+    public static String[] columns(String fields, Map<String, String> allowed, String defaults, String... required) {
+        String requested = fields == null || fields.trim().isEmpty() ? defaults : fields;
+        Set<String> columns = new LinkedHashSet<>();
+        for (String name : required) {
+            columns.add(allowed.get(name));
+        }
+        for (String name : requested.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String column = allowed.get(name);
+            if (column == null) {
+                throw new IllegalArgumentException("不支持的字段：" + name);
+            }
+            columns.add(column);
+        }
+        return columns.toArray(new String[0]);
+    }
+}
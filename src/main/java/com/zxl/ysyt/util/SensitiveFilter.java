@@ -0,0 +1,356 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.SensitiveConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 01:20
+ *
+ * 敏感词过滤，词库编译成 Aho-Corasick 自动机，正文每个字符只走一次，耗时只和正文长度有关，和词库大小无关
+ * 自动机建好后压成几个数组：每个状态的出边按字符排好序放在一段连续区间里，查边用二分；
+ * 另有失败指针和“以这个状态结尾的最长敏感词长度”，打码时不用再沿失败链找输出
+ * 匹配前逐个字符规范化（全角转半角、转小写），空白和标点直接跳过，“敏 感”“敏.感”也能查出来
+ * 词库改动后在后台建好新的自动机再整体替换 volatile 引用，替换前后的请求都不用等锁
+ */
+@Slf4j
+@Component
+public class SensitiveFilter {
+
+    public enum Policy {
+        MASK,       //命中的部分换成 *
+        REJECT      //整段拒绝
+    }
+
+    private static final char MASK_CHAR = '*';
+
+    private final SensitiveConfig sensitiveConfig;
+
+    private final ResourceLoader resourceLoader;
+
+    private volatile Automaton automaton = Automaton.build(Collections.emptyList());
+
+    private volatile long loadedAt;
+
+    //词库文件的修改时间，拿不到（比如在 jar 包里）时是 0，只在启动时加载一次
+    private long lastModified = -1;
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public SensitiveFilter(SensitiveConfig sensitiveConfig, ResourceLoader resourceLoader) {
+        this.sensitiveConfig = sensitiveConfig;
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    public void init() {
+        reloadIfChanged();
+    }
+
+    @Scheduled(initialDelayString = "${sensitive.reload-interval-millis:60000}",
+            fixedDelayString = "${sensitive.reload-interval-millis:60000}")
+    public synchronized void reloadIfChanged() {
+        Resource resource = resourceLoader.getResource(sensitiveConfig.getDictionary());
+        long modified;
+        try {
+            modified = resource.lastModified();
+        } catch (Exception e) {
+            modified = 0;
+        }
+        if (modified == lastModified || modified == 0 && lastModified == 0) {
+            return;
+        }
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    words.add(line);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取敏感词库 {} 失败，继续使用原来的词库", sensitiveConfig.getDictionary(), e);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Automaton next = Automaton.build(words);
+        automaton = next;
+        lastModified = modified;
+        loadedAt = System.currentTimeMillis();
+        reloads.incrementAndGet();
+        log.info("敏感词库加载完成，{} 个词，{} 个状态，耗时 {} ms", next.words, next.states(), loadedAt - start);
+    }
+
+    /**
+     * @return 是否包含敏感词，找到第一个就返回
+     */
+    public boolean contains(String text) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        boolean found = automaton.scan(text, null);
+        if (found) {
+            hits.incrementAndGet();
+        }
+        return found;
+    }
+
+    /**
+     * @return 敏感词换成 * 以后的文本；没有命中时原样返回同一个对象
+     */
+    public String mask(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        char[] chars = text.toCharArray();
+        if (!automaton.scan(text, chars)) {
+            return text;
+        }
+        hits.incrementAndGet();
+        return new String(chars);
+    }
+
+    /**
+     * 按策略处理一段文本
+     *
+     * @return 可以保存的文本；策略是 REJECT 且命中时返回 null
+     */
+    public String screen(String text, Policy policy) {
+        if (policy == Policy.REJECT) {
+            return contains(text) ? null : text;
+        }
+        return mask(text);
+    }
+
+    public Map<String, Object> stats() {
+        Automaton current = automaton;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("words", current.words);
+        stats.put("states", current.states());
+        stats.put("reloads", reloads.get());
+        stats.put("loadedAt", loadedAt == 0 ? null : new Date(loadedAt));
+        stats.put("hits", hits.get());
+        return stats;
+    }
+
+    //空白、标点、符号不参与匹配
+    static boolean isNoise(char c) {
+        if (Character.isWhitespace(c) || c == '　') {
+            return true;
+        }
+        switch (Character.getType(c)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+            case Character.MATH_SYMBOL:
+            case Character.CURRENCY_SYMBOL:
+            case Character.MODIFIER_SYMBOL:
+            case Character.OTHER_SYMBOL:
+            case Character.FORMAT:
+            case Character.CONTROL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 编译好的自动机，建好以后不再修改，可以被任意多个线程同时使用
+     */
+    static final class Automaton {
+
+        final int words;
+
+        //状态 s 的出边是 edgeChars/edgeTargets 的 [edgeStart[s], edgeStart[s + 1])，按字符递增
+        private final int[] edgeStart;
+        private final char[] edgeChars;
+        private final int[] edgeTargets;
+        private final int[] fail;
+
+        //以状态 s 结尾的最长敏感词的长度（按去掉干扰字符后的长度算），0 表示没有
+        private final int[] output;
+
+        private Automaton(int words, int[] edgeStart, char[] edgeChars, int[] edgeTargets, int[] fail, int[] output) {
+            this.words = words;
+            this.edgeStart = edgeStart;
+            this.edgeChars = edgeChars;
+            this.edgeTargets = edgeTargets;
+            this.fail = fail;
+            this.output = output;
+        }
+
+        static Automaton build(Collection<String> dictionary) {
+            //先建普通的字典树，状态按广度优先编号，失败指针只会指向编号更小的状态
+            List<TreeMap<Character, Integer>> children = new ArrayList<>();
+            List<Integer> depth = new ArrayList<>();
+            List<Boolean> terminal = new ArrayList<>();
+            children.add(new TreeMap<>());
+            depth.add(0);
+            terminal.add(false);
+            int words = 0;
+            for (String word : dictionary) {
+                int state = 0;
+                for (int i = 0; i < word.length(); i++) {
+                    char c = InvertedIndex.normalize(word.charAt(i));
+                    if (isNoise(c)) {
+                        continue;
+                    }
+                    Integer next = children.get(state).get(c);
+                    if (next == null) {
+                        next = children.size();
+                        children.get(state).put(c, next);
+                        children.add(new TreeMap<>());
+                        depth.add(depth.get(state) + 1);
+                        terminal.add(false);
+                    }
+                    state = next;
+                }
+                if (state != 0 && !terminal.get(state)) {
+                    terminal.set(state, true);
+                    words++;
+                }
+            }
+
+            int n = children.size();
+            int[] order = new int[n];
+            int[] renumber = new int[n];
+            int head = 0;
+            int tail = 0;
+            order[tail++] = 0;
+            while (head < tail) {
+                int state = order[head++];
+                renumber[state] = head - 1;
+                for (int child : children.get(state).values()) {
+                    order[tail++] = child;
+                }
+            }
+
+            int[] edgeStart = new int[n + 1];
+            char[] edgeChars = new char[n - 1];
+            int[] edgeTargets = new int[n - 1];
+            int e = 0;
+            for (int s = 0; s < n; s++) {
+                edgeStart[s] = e;
+                for (Map.Entry<Character, Integer> edge : children.get(order[s]).entrySet()) {
+                    edgeChars[e] = edge.getKey();
+                    edgeTargets[e] = renumber[edge.getValue()];
+                    e++;
+                }
+            }
+            edgeStart[n] = e;
+
+            int[] fail = new int[n];
+            int[] output = new int[n];
+            Automaton automaton = new Automaton(words, edgeStart, edgeChars, edgeTargets, fail, output);
+            for (int s = 0; s < n; s++) {
+                int old = order[s];
+                output[s] = terminal.get(old) ? depth.get(old) : 0;
+                for (int k = edgeStart[s]; k < edgeStart[s + 1]; k++) {
+                    int child = edgeTargets[k];
+                    int f = s == 0 ? 0 : automaton.next(fail[s], edgeChars[k]);
+                    fail[child] = f;
+                }
+                if (s != 0 && output[s] == 0) {
+                    output[s] = output[fail[s]];      //fail[s] 编号更小，已经算好
+                }
+            }
+            return automaton;
+        }
+
+        int states() {
+            return fail.length;
+        }
+
+        /**
+         * 从状态 s 读入字符 c 后的状态，没有出边时沿失败指针往回找
+         */
+        private int next(int s, char c) {
+            while (true) {
+                int lo = edgeStart[s];
+                int hi = edgeStart[s + 1] - 1;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    char m = edgeChars[mid];
+                    if (m < c) {
+                        lo = mid + 1;
+                    } else if (m > c) {
+                        hi = mid - 1;
+                    } else {
+                        return edgeTargets[mid];
+                    }
+                }
+                if (s == 0) {
+                    return 0;
+                }
+                s = fail[s];
+            }
+        }
+
+        /**
+         * 扫描一遍正文
+         *
+         * @param masked 为 null 时找到第一个词就返回；否则把所有命中的字符（包括夹在中间的干扰字符）改成 *
+         * @return 是否命中
+         */
+        boolean scan(String text, char[] masked) {
+            if (states() == 1) {
+                return false;
+            }
+            //最近读入的有效字符在原文里的下标，环形使用，长度够放下最长的词即可
+            int[] positions = masked == null ? null : new int[Math.min(text.length(), 64) + 1];
+            int count = 0;
+            int state = 0;
+            boolean found = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = InvertedIndex.normalize(text.charAt(i));
+                if (isNoise(c)) {
+                    continue;
+                }
+                state = next(state, c);
+                if (positions != null) {
+                    positions[count % positions.length] = i;
+                }
+                count++;
+                int length = output[state];
+                if (length == 0) {
+                    continue;
+                }
+                if (masked == null) {
+                    return true;
+                }
+                found = true;
+                int from = length <= positions.length ? positions[(count - length) % positions.length] : maskedFrom(text, i, length);
+                Arrays.fill(masked, from, i + 1, MASK_CHAR);
+            }
+            return found;
+        }
+
+        //词比环形缓冲还长时，从当前位置往回数 length 个有效字符
+        private static int maskedFrom(String text, int end, int length) {
+            int j = end;
+            for (int seen = 0; j >= 0; j--) {
+                if (!isNoise(InvertedIndex.normalize(text.charAt(j))) && ++seen == length) {
+                    break;
+                }
+            }
+            return j;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.lang.SimilarBook;
+import com.zxl.ysyt.config.SimilarConfig;
+import com.zxl.ysyt.mapper.BookCaseMapper;
+import com.zxl.ysyt.mapper.BookMapper;
+import com.zxl.ysyt.pojo.Book;
+import com.zxl.ysyt.pojo.BookCase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 00:50
+ *
+ * 相似图书推荐：每本书预先算好最相似的 topN 本，详情页请求只查表，不在请求里算相似度
+ * 相似度由三部分加权：作者相同；关键字二元组的 Jaccard 相似度；同书架相似度，即两本书同时出现在多少个用户的书架上，
+ * 再除以两本书各自所在书架数的几何平均（余弦相似度）。书架记录没有图书 id，靠 content 和图书的 url 对应
+ * 候选只从倒排表里来（同作者、有共同关键字二元组、同书架），模型是稀疏的，不会两两比较所有图书
+ * 启动后全量加载一次，之后按 update_time 增量读取图书和书架的改动，只重算受影响的书：
+ * 相似度是对称的，一本书的特征变了，改动前后和它有交集的书都要重算；一个书架变了，架上所有书都要重算
+ */
+@Slf4j
+@Component
+public class SimilarBooks {
+
+    private static final int BATCH = 1000;
+
+    //增量刷新时往回多看一段，防止同一时刻提交得晚的修改被漏掉；重复读到的行没有变化会直接跳过
+    private static final long OVERLAP_MILLIS = 5000;
+
+    //出现在太多图书里的关键字二元组区分不出什么，不用它找候选
+    private static final int MAX_POSTINGS = 2000;
+
+    //热门图书所在的书架很多，算同书架相似度时最多看这么多个
+    private static final int MAX_SHELVES = 2000;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookCaseMapper bookCaseMapper;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    private final SimilarConfig similarConfig;
+
+    //请求线程只读这张表，其余状态只有刷新线程会读写
+    private final ConcurrentHashMap<String, List<Neighbour>> table = new ConcurrentHashMap<>();
+
+    private final Map<String, Features> books = new HashMap<>();
+    private final Map<String, Set<String>> byAuthor = new HashMap<>();
+    private final Map<Integer, Set<String>> byGram = new HashMap<>();
+    private final Map<String, String> idByUrl = new HashMap<>();
+
+    private final Map<Integer, Shelved> rows = new HashMap<>();
+    private final Map<String, Map<String, Integer>> shelves = new HashMap<>();      //uid -> url -> 架上几条
+    private final Map<String, Set<String>> readers = new HashMap<>();               //url -> uid
+
+    private final Set<String> dirty = new LinkedHashSet<>();
+
+    private boolean loaded;
+    private Date bookWatermark = new Date(0);
+    private Date shelfWatermark = new Date(0);
+
+    private volatile long lastRoundMillis;
+    private volatile int lastRoundBooks;
+    private volatile int pending;
+
+    public SimilarBooks(SimilarConfig similarConfig) {
+        this.similarConfig = similarConfig;
+    }
+
+    @Scheduled(initialDelay = 5000L, fixedDelayString = "${similar.refresh-interval-millis:60000}")
+    public void refresh() {
+        try {
+            if (!loaded) {
+                loadAll();
+                loaded = true;
+            } else {
+                loadChanges();
+            }
+            recompute();
+        } catch (Exception e) {
+            log.warn("刷新相似图书失败", e);
+        }
+    }
+
+    /**
+     * @param id    图书 id
+     * @param limit 最多返回几本，不超过 topN
+     * @return 按相似度从高到低；还没算出来或者没有相似的书时是空列表
+     */
+    public List<SimilarBook> similar(String id, int limit) {
+        List<Neighbour> neighbours = id == null ? null : table.get(id);
+        if (neighbours == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        neighbours = neighbours.subList(0, Math.min(limit, neighbours.size()));
+        List<String> ids = new ArrayList<>(neighbours.size());
+        for (Neighbour neighbour : neighbours) {
+            ids.add(neighbour.id);
+        }
+        List<Book> found = catalogSnapshot.findByIds(ids);
+        List<SimilarBook> result = new ArrayList<>(neighbours.size());
+        for (int i = 0; i < neighbours.size(); i++) {
+            Book book = found.get(i);
+            if (book == null) {
+                continue;      //刚删除、还没重算到的书
+            }
+            SimilarBook similar = new SimilarBook();
+            similar.setId(book.getId());
+            similar.setBname(book.getBname());
+            similar.setAuthor(book.getAuthor());
+            similar.setCover(book.getCover());
+            similar.setScore(neighbours.get(i).score);
+            result.add(similar);
+        }
+        return result;
+    }
+
+    private void loadAll() {
+        long afterId = 0;
+        List<Book> batch;
+        do {
+            batch = bookMapper.selectCatalogAfter(afterId, BATCH);
+            for (Book book : batch) {
+                applyBook(book, false);
+                bookWatermark = later(bookWatermark, book.getUpdateTime());
+                afterId = Long.parseLong(book.getId());
+            }
+        } while (batch.size() == BATCH);
+
+        afterId = 0;
+        List<BookCase> shelved;
+        do {
+            shelved = bookCaseMapper.selectShelvedAfter(afterId, BATCH);
+            for (BookCase row : shelved) {
+                applyRow(row, false);
+                shelfWatermark = later(shelfWatermark, row.getUpdateTime());
+                afterId = row.getId();
+            }
+        } while (shelved.size() == BATCH);
+
+        dirty.addAll(books.keySet());
+        log.info("相似图书模型加载完成，{} 本书，{} 条书架记录", books.size(), rows.size());
+    }
+
+    private void loadChanges() {
+        Date since = new Date(bookWatermark.getTime() - OVERLAP_MILLIS);
+        long afterId = 0;
+        List<Book> batch;
+        do {
+            batch = bookMapper.selectChangedSince(since, afterId, BATCH);
+            for (Book book : batch) {
+                applyBook(book, true);
+                bookWatermark = later(bookWatermark, book.getUpdateTime());
+                since = book.getUpdateTime();
+                afterId = Long.parseLong(book.getId());
+            }
+        } while (batch.size() == BATCH);
+
+        since = new Date(shelfWatermark.getTime() - OVERLAP_MILLIS);
+        afterId = 0;
+        List<BookCase> shelved;
+        do {
+            shelved = bookCaseMapper.selectAllChangedSince(since, afterId, BATCH);
+            for (BookCase row : shelved) {
+                applyRow(row, true);
+                shelfWatermark = later(shelfWatermark, row.getUpdateTime());
+                since = row.getUpdateTime();
+                afterId = row.getId();
+            }
+        } while (shelved.size() == BATCH);
+    }
+
+    /**
+     * 把一本书的改动合并进倒排表
+     *
+     * @param propagate 为 true 时把改动前后和它相似的书都标记为待重算；全量加载时所有书本来就要算，不用标记
+     */
+    void applyBook(Book book, boolean propagate) {
+        String id = book.getId();
+        Features old = books.get(id);
+        boolean deleted = book.getDeleted() != null && book.getDeleted() != 0;
+        Features features = deleted ? null : new Features(book);
+        if (old == null && features == null || old != null && old.sameAs(features)) {
+            return;
+        }
+        if (old != null) {
+            if (propagate) {
+                dirty.addAll(candidates(id).keySet());
+            }
+            unindex(id, old);
+        }
+        if (features == null) {
+            table.remove(id);
+            dirty.remove(id);
+            return;
+        }
+        index(id, features);
+        dirty.add(id);
+        if (propagate) {
+            dirty.addAll(candidates(id).keySet());
+        }
+    }
+
+    /**
+     * 把一条书架记录的改动合并进书架表，同样可以选择是否标记受影响的书
+     */
+    void applyRow(BookCase row, boolean propagate) {
+        Shelved old = rows.get(row.getId());
+        boolean deleted = row.getDeleted() != null && row.getDeleted() != 0;
+        Shelved shelved = deleted || row.getUid() == null || row.getContent() == null
+                ? null : new Shelved(row.getUid(), row.getContent());
+        if (old == null && shelved == null || old != null && old.equals(shelved)) {
+            return;
+        }
+        if (old != null) {
+            if (propagate) {
+                touchShelf(old);
+            }
+            rows.remove(row.getId());
+            unshelve(old);
+        }
+        if (shelved != null) {
+            rows.put(row.getId(), shelved);
+            shelve(shelved);
+            if (propagate) {
+                touchShelf(shelved);
+            }
+        }
+    }
+
+    void recompute() {
+        long start = System.currentTimeMillis();
+        int limit = similarConfig.getMaxPerRound();
+        int count = 0;
+        Iterator<String> it = dirty.iterator();
+        while (it.hasNext() && count < limit) {
+            String id = it.next();
+            it.remove();
+            List<Neighbour> neighbours = top(candidates(id));
+            if (neighbours.isEmpty()) {
+                table.remove(id);
+            } else {
+                table.put(id, neighbours);
+            }
+            count++;
+        }
+        pending = dirty.size();
+        if (count > 0) {
+            lastRoundMillis = System.currentTimeMillis() - start;
+            lastRoundBooks = count;
+        }
+    }
+
+    /**
+     * 从倒排表里找出所有和 id 有交集的书，算出相似度；不包括它自己
+     */
+    private Map<String, Double> candidates(String id) {
+        Features features = books.get(id);
+        Map<String, Double> scores = new HashMap<>();
+        if (features == null) {
+            return scores;
+        }
+        if (!features.author.isEmpty()) {
+            for (String other : byAuthor.get(features.author)) {
+                scores.merge(other, similarConfig.getAuthorWeight(), Double::sum);
+            }
+        }
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (Integer gram : features.grams) {
+            Set<String> postings = byGram.get(gram);
+            if (postings.size() > MAX_POSTINGS) {
+                continue;
+            }
+            for (String other : postings) {
+                shared.merge(other, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            int both = entry.getValue();
+            int union = features.grams.size() + books.get(entry.getKey()).grams.size() - both;
+            scores.merge(entry.getKey(), similarConfig.getKeywordWeight() * both / union, Double::sum);
+        }
+
+        Set<String> users = readers.get(features.url);
+        if (users != null) {
+            Map<String, Integer> together = new HashMap<>();
+            int seen = 0;
+            for (String uid : users) {
+                if (seen++ == MAX_SHELVES) {
+                    break;
+                }
+                for (String url : shelves.get(uid).keySet()) {
+                    String other = idByUrl.get(url);
+                    if (other != null) {
+                        together.merge(other, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<String, Integer> entry : together.entrySet()) {
+                Set<String> otherUsers = readers.get(books.get(entry.getKey()).url);
+                double cosine = entry.getValue() / Math.sqrt((double) users.size() * otherUsers.size());
+                scores.merge(entry.getKey(), similarConfig.getShelfWeight() * Math.min(cosine, 1.0), Double::sum);
+            }
+        }
+        scores.remove(id);
+        return scores;
+    }
+
+    private List<Neighbour> top(Map<String, Double> scores) {
+        int n = similarConfig.getTopN();
+        Comparator<Neighbour> order = Comparator.comparingDouble((Neighbour b) -> b.score).reversed()
+                .thenComparing(b -> b.id);
+        PriorityQueue<Neighbour> heap = new PriorityQueue<>(n + 1, order.reversed());
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            heap.offer(new Neighbour(entry.getKey(), entry.getValue()));
+            if (heap.size() > n) {
+                heap.poll();
+            }
+        }
+        List<Neighbour> result = new ArrayList<>(heap);
+        result.sort(order);
+        return Collections.unmodifiableList(result);
+    }
+
+    private void index(String id, Features features) {
+        books.put(id, features);
+        if (!features.author.isEmpty()) {
+            byAuthor.computeIfAbsent(features.author, k -> new HashSet<>()).add(id);
+        }
+        for (Integer gram : features.grams) {
+            byGram.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+        if (features.url != null) {
+            idByUrl.put(features.url, id);
+        }
+    }
+
+    private void unindex(String id, Features features) {
+        books.remove(id);
+        remove(byAuthor, features.author, id);
+        for (Integer gram : features.grams) {
+            remove(byGram, gram, id);
+        }
+        if (features.url != null) {
+            idByUrl.remove(features.url, id);
+        }
+    }
+
+    private void shelve(Shelved row) {
+        shelves.computeIfAbsent(row.uid, k -> new HashMap<>()).merge(row.url, 1, Integer::sum);
+        readers.computeIfAbsent(row.url, k -> new HashSet<>()).add(row.uid);
+    }
+
+    private void unshelve(Shelved row) {
+        Map<String, Integer> shelf = shelves.get(row.uid);
+        if (shelf.merge(row.url, -1, Integer::sum) == 0) {
+            shelf.remove(row.url);
+            remove(readers, row.url, row.uid);
+            if (shelf.isEmpty()) {
+                shelves.remove(row.uid);
+            }
+        }
+    }
+
+    //一个书架上的书两两之间的同书架相似度都可能变了
+    private void touchShelf(Shelved row) {
+        markByUrl(row.url);
+        Map<String, Integer> shelf = shelves.get(row.uid);
+        if (shelf != null) {
+            for (String url : shelf.keySet()) {
+                markByUrl(url);
+            }
+        }
+    }
+
+    private void markByUrl(String url) {
+        String id = idByUrl.get(url);
+        if (id != null) {
+            dirty.add(id);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("books", table.size());
+        stats.put("pending", pending);
+        stats.put("lastRoundBooks", lastRoundBooks);
+        stats.put("lastRoundMillis", lastRoundMillis);
+        return stats;
+    }
+
+    private static <K> void remove(Map<K, Set<String>> index, K key, String value) {
+        Set<String> set = index.get(key);
+        if (set != null && set.remove(value) && set.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static Date later(Date watermark, Date time) {
+        return time != null && time.after(watermark) ? time : watermark;
+    }
+
+    private static class Features {
+        final String author;
+        final Set<Integer> grams = new HashSet<>();
+        final String url;
+
+        Features(Book book) {
+            this.author = CatalogIndex.normalize(book.getAuthor() == null ? "" : book.getAuthor());
+            this.url = book.getUrl();
+            if (book.getKeyword() != null) {
+                //关键字可能是用标点隔开的几个词，分开取二元组，不跨词；单字的词整个作为一项
+                for (String word : book.getKeyword().split("[\\s,，、;；/|]+")) {
+                    String w = CatalogIndex.normalize(word);
+                    if (w.length() == 1) {
+                        grams.add((int) w.charAt(0));
+                    }
+                    for (int i = 0; i + 1 < w.length(); i++) {
+                        grams.add((w.charAt(i) << 16) | w.charAt(i + 1));
+                    }
+                }
+            }
+        }
+
+        boolean sameAs(Features other) {
+            return other != null && author.equals(other.author) && grams.equals(other.grams)
+                    && Objects.equals(url, other.url);
+        }
+    }
+
+    private static class Shelved {
+        final String uid;
+        final String url;
+
+        Shelved(String uid, String url) {
+            this.uid = uid;
+            this.url = url;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Shelved)) {
+                return false;
+            }
+            Shelved other = (Shelved) o;
+            return uid.equals(other.uid) && url.equals(other.url);
+        }
+
+        @Override
+        public int hashCode() {
+            return uid.hashCode() * 31 + url.hashCode();
+        }
+    }
+
+    private static class Neighbour {
+        final String id;
+        final double score;
+
+        Neighbour(String id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.zxl.ysyt.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 18:50
+ *
+ * 合并同一个键上的并发读取：第一个请求真正去读，同时到达的其他请求等它的结果，读完就从表里移除，不做缓存
+ * 新书上了轮播图以后几百个请求同时读同一本书，到 minio 那里只有一次下载
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();       //真正执行的次数
+    private final AtomicLong coalesced = new AtomicLong();   //被合并、直接等结果的次数
+
+    /**
+     * @param key  相同的键只会同时执行一次
+     * @param call 实际的读取
+     * @return 读取结果，失败时所有等待者都会收到同一个异常
+     * @throws IOException
+     */
+    public V execute(K key, Call<V> call) throws IOException {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+        calls.incrementAndGet();
+        try {
+            V value = call.call();
+            mine.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待读取结果时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.size());
+        stats.put("calls", calls.get());
+        stats.put("coalesced", coalesced.get());
+        return stats;
+    }
+
+    public interface Call<V> {
+        V call() throws IOException;
+    }
+}
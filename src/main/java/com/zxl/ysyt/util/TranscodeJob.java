@@ -0,0 +1,164 @@
+package com.zxl.ysyt.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 17:20
+ *
+ * 维护 txt 桶里每本书的副本（见 TxtVariants）：
+ * 入库时直接写好 UTF-8 副本和 gzip 副本；老文件由后台任务补齐，读取时就不用再转码、也不用临时压缩
+ * 每个副本都记着生成它的原始文件 ETag，原始文件被同名覆盖后，后台任务会重新生成
+ */
+@Slf4j
+@Component
+public class TranscodeJob {
+
+    private static final String UTF8_CONTENT_TYPE = "text/plain;charset=utf-8";
+
+    private static final String GZIP_CONTENT_TYPE = "application/gzip";
+
+    @Autowired
+    private MinioUtil minioUtil;
+
+    /**
+     * 入库时写副本，文本已经在内存里了，直接编码、压缩后上传
+     *
+     * @param objectName txt 桶里的原始文件名
+     * @param text       文本内容
+     */
+    public void storeVariants(String objectName, String text) throws Exception {
+        Map<String, String> source = TxtVariants.sourceMetadata(
+                minioUtil.statObject(MinioConstant.BUCKET_NAME_Txt, objectName).etag());
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        String utf8Name = TxtVariants.UTF8_PREFIX + objectName;
+        minioUtil.putObject(MinioConstant.BUCKET_NAME_Txt, utf8Name, new ByteArrayInputStream(utf8), UTF8_CONTENT_TYPE, source);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(utf8.length / 3);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(utf8);
+        }
+        minioUtil.putObject(MinioConstant.BUCKET_NAME_Txt, gzipName(utf8Name),
+                new ByteArrayInputStream(compressed.toByteArray()), GZIP_CONTENT_TYPE, source);
+    }
+
+    @Scheduled(initialDelay = 60 * 1000L, fixedDelay = 30 * 60 * 1000L)
+    public void transcodeAll() {
+        List<String> originals;
+        Set<String> converted;
+        Set<String> compressed;
+        try {
+            originals = minioUtil.listObjectNames(MinioConstant.BUCKET_NAME_Txt);
+            converted = new HashSet<>(minioUtil.listObjectNames(MinioConstant.BUCKET_NAME_Txt, TxtVariants.UTF8_PREFIX));
+            compressed = new HashSet<>(minioUtil.listObjectNames(MinioConstant.BUCKET_NAME_Txt, TxtVariants.GZIP_PREFIX));
+        } catch (Exception e) {
+            log.warn("列出 txt 桶失败，跳过本次转码", e);
+            return;
+        }
+        for (String name : originals) {
+            if (!TxtVariants.isOriginal(MinioConstant.BUCKET_NAME_Txt, name)) {
+                continue;
+            }
+            String utf8Name = TxtVariants.UTF8_PREFIX + name;
+            String gzipName = gzipName(utf8Name);
+            try {
+                //副本缺失，或者原始文件被覆盖过（副本记录的 ETag 对不上）都要重新生成
+                String etag = minioUtil.statObject(MinioConstant.BUCKET_NAME_Txt, name).etag();
+                if (!converted.contains(utf8Name) || !current(utf8Name, etag)) {
+                    transcode(name);
+                } else if (!compressed.contains(gzipName) || !current(gzipName, etag)) {
+                    compress(utf8Name);
+                }
+            } catch (Exception e) {
+                log.warn("{} 生成副本失败", name, e);
+            }
+        }
+    }
+
+    /**
+     * 副本是不是由当前版本的原始文件生成的；没有记录来源的老副本也算过期，顺便补上记录
+     */
+    private boolean current(String variantName, String originalEtag) throws Exception {
+        String source = TxtVariants.sourceEtag(minioUtil.statObject(MinioConstant.BUCKET_NAME_Txt, variantName));
+        return source != null && BookContentUtil.unquote(source).equals(BookContentUtil.unquote(originalEtag));
+    }
+
+    /**
+     * 把一个 GB2312 文件流式转成 UTF-8，再压缩一份；都先落到临时文件，上传时才知道确切大小
+     * 按 ETag 读原始文件，读的途中被覆盖就失败，不会把新 ETag 记到旧内容的副本上
+     *
+     * @param objectName txt 桶里的原始文件名
+     */
+    public void transcode(String objectName) throws Exception {
+        String etag = minioUtil.statObject(MinioConstant.BUCKET_NAME_Txt, objectName).etag();
+        Map<String, String> source = TxtVariants.sourceMetadata(etag);
+        Path utf8 = Files.createTempFile("transcode", ".txt");
+        try {
+            try (InputStream in = minioUtil.getObjectIfMatch(MinioConstant.BUCKET_NAME_Txt, objectName, etag);
+                 OutputStream out = new BufferedOutputStream(new FileOutputStream(utf8.toFile()))) {
+                TxtToString.transcode(in, out, Charset.forName(TxtToString.CHARSET), StandardCharsets.UTF_8);
+            }
+            String utf8Name = TxtVariants.UTF8_PREFIX + objectName;
+            upload(utf8, utf8Name, UTF8_CONTENT_TYPE, source);
+            try (InputStream in = new FileInputStream(utf8.toFile())) {
+                compress(in, gzipName(utf8Name), source);
+            }
+            log.info("{} 已生成 UTF-8 和 gzip 副本", objectName);
+        } finally {
+            Files.deleteIfExists(utf8);
+        }
+    }
+
+    /**
+     * 给已有的 UTF-8 副本补一个 gzip 副本，来源记录沿用 UTF-8 副本的
+     */
+    public void compress(String utf8Name) throws Exception {
+        String source = TxtVariants.sourceEtag(minioUtil.statObject(MinioConstant.BUCKET_NAME_Txt, utf8Name));
+        Map<String, String> metadata = source == null ? Collections.emptyMap() : TxtVariants.sourceMetadata(source);
+        try (InputStream in = minioUtil.getObject(MinioConstant.BUCKET_NAME_Txt, utf8Name)) {
+            compress(in, gzipName(utf8Name), metadata);
+        }
+        log.info("{} 已生成 gzip 副本", utf8Name);
+    }
+
+    private void compress(InputStream in, String gzipName, Map<String, String> source) throws Exception {
+        Path gzip = Files.createTempFile("compress", TxtVariants.GZIP_SUFFIX);
+        try {
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(gzip.toFile())))) {
+                byte[] buf = new byte[8 * 1024];
+                int r;
+                while ((r = in.read(buf)) != -1) {
+                    out.write(buf, 0, r);
+                }
+            }
+            upload(gzip, gzipName, GZIP_CONTENT_TYPE, source);
+        } finally {
+            Files.deleteIfExists(gzip);
+        }
+    }
+
+    private void upload(Path file, String objectName, String contentType, Map<String, String> source) throws Exception {
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            minioUtil.putObject(MinioConstant.BUCKET_NAME_Txt, objectName, in, contentType, source);
+        }
+    }
+
+    private static String gzipName(String objectName) {
+        return TxtVariants.GZIP_PREFIX + objectName + TxtVariants.GZIP_SUFFIX;
+    }
+}
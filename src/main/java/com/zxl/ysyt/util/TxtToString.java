@@ -1,14 +1,16 @@
 package com.zxl.ysyt.util;
 
-import com.alibaba.fastjson.JSON;
-import org.apache.ibatis.javassist.bytecode.stackmap.BasicBlock;
+import com.zxl.ysyt.common.exception.ContentFetchException;
 
 import java.io.*;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.*;
 
 
 /**
@@ -18,43 +20,119 @@ import java.util.ArrayList;
 public class TxtToString {
     //private static final String URL = "http://119.23.237.129:9000/txt/三体.txt";
 
-    public static String openFile(String filePath) {
-        int HttpResult; // 服务器返回的状态
-        String ee = new String();
+    public static final String CHARSET = "GB2312";    //txt 桶里的文本都是按 GB2312 存的
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 按 URL 直接下载整本书，连接和读取都有超时，失败时抛异常而不是返回空字符串
+     * 服务里读取图书内容请用 BookContentUtil.getContent，它走 MinioClient 的连接池，带重试和缓存
+     *
+     * @param filePath 文件服务器地址
+     * @return
+     * @throws IOException
+     */
+    @Deprecated
+    public static String openFile(String filePath) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(filePath).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        conn.setReadTimeout(READ_TIMEOUT_MILLIS);
         try {
-            URL url = new URL(filePath); // 创建URL
-            URLConnection urlconn = url.openConnection(); // 试图连接并取得返回状态码
-            urlconn.connect();
-            HttpURLConnection httpconn = (HttpURLConnection) urlconn;
-            HttpResult = httpconn.getResponseCode();
-            if (HttpResult != HttpURLConnection.HTTP_OK) {
-                System.out.print("无法连接到");
-            } else {
-                int filesize = urlconn.getContentLength(); // 取数据长度
-                InputStreamReader isReader = new InputStreamReader(urlconn.getInputStream(), "GB2312");
-                BufferedReader reader = new BufferedReader(isReader);
-                StringBuffer buffer = new StringBuffer();
-                String line; // 用来保存每行读取的内容
-                line = reader.readLine(); // 读取第一行
-                while (line != null) { // 如果 line 为空说明读完了
-                    buffer.append(line); // 将读到的内容添加到 buffer 中
-                    buffer.append(" "); // 添加换行符
-                    line = reader.readLine(); // 读取下一行
-                }
-                System.out.print(buffer.toString());
-                ee = buffer.toString();
+            int status = conn.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new FileNotFoundException(filePath + " 不存在");
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new ContentFetchException(filePath, new IOException("HTTP " + status));
             }
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+            try (InputStream in = conn.getInputStream()) {
+                return readText(in, CHARSET);
+            }
+        } catch (FileNotFoundException | ContentFetchException e) {
+            throw e;
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new ContentFetchException(filePath, e);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * 和 openFile 一样把文本按行读出、换行替换成空格，用于从本地缓存文件或 UTF-8 副本读取
+     *
+     * @param in      原始字节流，由调用方负责关闭
+     * @param charset 文本的字符集
+     * @return
+     * @throws IOException
+     */
+    public static String readText(InputStream in, String charset) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset));
+        StringBuilder buffer = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            buffer.append(line).append(' ');
         }
-        return ee;
+        return buffer.toString();
     }
 
-//    public static void main(String[] args) {
-//        openFile("http://119.23.237.129:9000/txt/三体.txt");
-//    }
+    /**
+     * 流式转码，内存里只有两个固定大小的缓冲区，无法解码的字节替换成替代字符
+     *
+     * @param in   源字节流
+     * @param out  目标字节流
+     * @param from 源字符集
+     * @param to   目标字符集
+     * @throws IOException
+     */
+    public static void transcode(InputStream in, OutputStream out, Charset from, Charset to) throws IOException {
+        CharsetDecoder decoder = from.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharsetEncoder encoder = to.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ReadableByteChannel source = Channels.newChannel(in);
+        WritableByteChannel target = Channels.newChannel(out);
+        ByteBuffer bytesIn = ByteBuffer.allocate(8 * 1024);
+        CharBuffer chars = CharBuffer.allocate(8 * 1024);
+        ByteBuffer bytesOut = ByteBuffer.allocate(16 * 1024);
 
+        boolean eof = false;
+        while (!eof) {
+            eof = source.read(bytesIn) == -1;
+            bytesIn.flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytesIn, chars, eof);
+                encodeAndWrite(encoder, chars, bytesOut, target, false);
+            } while (result.isOverflow());
+            bytesIn.compact();
+        }
+        decoder.flush(chars);
+        encodeAndWrite(encoder, chars, bytesOut, target, true);
+        encoder.flush(bytesOut);
+        bytesOut.flip();
+        while (bytesOut.hasRemaining()) {
+            target.write(bytesOut);
+        }
+        out.flush();
+    }
+
+    private static void encodeAndWrite(CharsetEncoder encoder, CharBuffer chars, ByteBuffer bytesOut,
+                                       WritableByteChannel target, boolean endOfInput) throws IOException {
+        chars.flip();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytesOut, endOfInput);
+            bytesOut.flip();
+            while (bytesOut.hasRemaining()) {
+                target.write(bytesOut);
+            }
+            bytesOut.clear();
+        } while (result.isOverflow());
+        chars.compact();
+    }
 
 }
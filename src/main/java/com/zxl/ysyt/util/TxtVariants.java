@@ -0,0 +1,80 @@
+package com.zxl.ysyt.util;
+
+import io.minio.ObjectStat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 17:00
+ *
+ * txt 桶里同一本书的几种存储形式：
+ * 原始文件 百年孤独.txt（GB2312），入库时生成的 UTF-8 副本 utf8/百年孤独.txt，
+ * 以及实际输出的那份文本的 gzip 压缩副本 gzip/utf8/百年孤独.txt.gz
+ * 副本的用户元数据 source-etag 记着生成它时原始文件的 ETag，原始文件被同名覆盖后据此认出过期的副本
+ */
+public final class TxtVariants {
+
+    public static final String UTF8 = "UTF-8";
+
+    public static final String UTF8_PREFIX = "utf8/";
+
+    public static final String GZIP_PREFIX = "gzip/";
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    //写入时 minio 会加上 x-amz-meta- 前缀，读出来的响应头名字都是小写
+    public static final String SOURCE_ETAG = "source-etag";
+
+    private static final String SOURCE_ETAG_HEADER = "x-amz-meta-" + SOURCE_ETAG;
+
+    private TxtVariants() {
+    }
+
+    /**
+     * 是否是可以生成副本的原始文本（txt 桶根目录下的 .txt 文件）
+     */
+    public static boolean isOriginal(ObjectLocation location) {
+        return isOriginal(location.getBucket(), location.getObject());
+    }
+
+    public static boolean isOriginal(String bucket, String object) {
+        return MinioConstant.BUCKET_NAME_Txt.equals(bucket)
+                && object.endsWith(".txt")
+                && object.indexOf('/') < 0;
+    }
+
+    public static ObjectLocation utf8(ObjectLocation original) {
+        return new ObjectLocation(original.getBucket(), UTF8_PREFIX + original.getObject());
+    }
+
+    public static ObjectLocation gzip(ObjectLocation source) {
+        return new ObjectLocation(source.getBucket(), GZIP_PREFIX + source.getObject() + GZIP_SUFFIX);
+    }
+
+    public static Map<String, String> sourceMetadata(String originalEtag) {
+        return Collections.singletonMap(SOURCE_ETAG, BookContentUtil.unquote(originalEtag));
+    }
+
+    /**
+     * @return 副本记录的原始文件 ETag；没有记录（加这个元数据之前生成的副本）时返回 null
+     */
+    public static String sourceEtag(ObjectStat variant) {
+        Map<String, List<String>> headers = variant.httpHeaders();
+        if (headers == null) {
+            return null;
+        }
+        List<String> values = headers.get(SOURCE_ETAG_HEADER);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * 副本是不是由这个版本的原始文件生成的；没有记录来源的老副本先当作有效，等后台任务重新生成
+     */
+    public static boolean derivedFrom(ObjectStat variant, String originalEtag) {
+        String source = sourceEtag(variant);
+        return source == null || BookContentUtil.unquote(source).equals(BookContentUtil.unquote(originalEtag));
+    }
+}
@@ -49,7 +49,8 @@ CREATE TABLE `book`  (
   `create_time` datetime(6) NULL DEFAULT NULL COMMENT '创建时间',
   `deleted` int(0) NULL DEFAULT 0 COMMENT '逻辑删除',
   `update_time` datetime(6) NULL DEFAULT NULL COMMENT '更新时间',
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_create_time`(`create_time`, `id`) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 16 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -70,6 +71,18 @@ INSERT INTO `book` VALUES (13, '人间失格', '太宰治', 'http://119.23.237.1
 INSERT INTO `book` VALUES (14, '小王子', '安托万・德・埃克苏佩里', 'http://119.23.237.129:9000/txt/小王子.txt', '小王子是一个超凡脱俗的仙童，他住在一颗只比他大一丁点儿的小行星上。陪伴他的是一朵他非常喜爱的小玫瑰花。但玫瑰花的虚荣心伤害了小王子对她的感情。小王子告别小行星，开始了遨游太空的旅行。他先后访问了六个行星，各种见闻使他陷入忧伤，他感到大人们荒唐可笑、太不正常。只有在其中一个点灯人的星球上，小王子才找到一个可以作为朋友的人。但点灯人的天地又十分狭小，除了点灯人他自己，不能容下第二个人。在地理学家的指点下，孤单的小王子来到人类居住的地球。', 'https://ss0.bdstatic.com/70cFvHSh_Q1YnxGkpoWK1HF6hhy/it/u=945612940,2946068888&fm=26&gp=0.jpg', '人群里也很寂寞', '2021-04-06 01:36:46.000000', 0, '2021-03-29 19:37:04.000000');
 INSERT INTO `book` VALUES (15, '人性的弱点', '戴尔・卡耐基', 'http://119.23.237.129:9000/txt/人性的弱点.txt', '《人性的弱点》自出版以来，已被译成 58 种文字畅销于世界各地，全球总销量达 9000 余万册，拥有 4 亿多读者，稳居成功励志类图书榜首，是人类出版史上继《圣经》之后的第二大畅销书。该书汇集了卡耐基的思想精华和激动人心的内容，是作者功的励志经典，出版后立即获得了广大读者的欢迎，成为西方世界的人文书。无数读者通过阅读和实践书中介绍的各种方法，\r\n不仅走出困境，有的还成为人仰慕的杰出人士。只要不断研读本书，相信你也可以发掘自己的无穷潜力，创造辉煌的人生。', 'https://gimg2.baidu.com/image_search/src=http%3A%2F%2Fimg.yzcdn.cn%2Fupload_files%2F2017%2F12%2F25%2FFlyT7ET8B6Q59iCJNKRB7jg2D589.jpg%3FimageView2%2F2%2Fw%2F580%2Fh%2F580%2Fq%2F75%2Fformat%2Fjpg&refer=http%3A%2F%2Fimg.yzcdn.cn&app=2002&size=f9999,10000&q=a80&n=0&g=0n&fmt=jpeg?sec=1621167969&t=4d5941325f240400881176a2ea79c0e7', '用你的毅力磨平高山', '2021-04-08 11:24:03.000000', 0, '2021-04-09 11:24:41.000000');
 
+-- ----------------------------
+-- Table structure for book_counter
+-- ----------------------------
+DROP TABLE IF EXISTS `book_counter`;
+CREATE TABLE `book_counter`  (
+  `bid` varchar(20) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '图书id',
+  `comments` bigint(0) NOT NULL DEFAULT 0 COMMENT '评论数',
+  `reads` bigint(0) NOT NULL DEFAULT 0 COMMENT '阅读数',
+  `update_time` datetime(6) NULL DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`bid`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for book_case
 -- ----------------------------
@@ -83,7 +96,9 @@ CREATE TABLE `book_case`  (
   `create_time` datetime(6) NULL DEFAULT NULL COMMENT '创建时间',
   `update_time` datetime(6) NULL DEFAULT NULL COMMENT '更新时间',
   `deleted` int(0) NULL DEFAULT 0 COMMENT '逻辑删除',
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_uid_update_time`(`uid`, `update_time`, `id`) USING BTREE,
+  INDEX `idx_update_time`(`update_time`, `id`) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 85 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -124,20 +139,35 @@ INSERT INTO `carousel` VALUES (6, '老人与海', '海明威', 'http://119.23.23
 -- ----------------------------
 DROP TABLE IF EXISTS `comment`;
 CREATE TABLE `comment`  (
-  `id` int(0) NOT NULL COMMENT '评论id，用于鉴别唯一一条评论',
+  `id` int(0) NOT NULL AUTO_INCREMENT COMMENT '评论id，用于鉴别唯一一条评论',
   `uid` varchar(20) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '用户id',
   `bid` varchar(20) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '图书id',
   `content` varchar(500) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL COMMENT '评论内容',
-  `deleted` int(0) NULL DEFAULT NULL COMMENT '逻辑删除',
+  `deleted` int(0) NULL DEFAULT 0 COMMENT '逻辑删除',
   `create_time` datetime(6) NULL DEFAULT NULL COMMENT '创建时间',
   `update_time` datetime(6) NULL DEFAULT NULL COMMENT '更新时间',
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_bid_create_time`(`bid`, `create_time`, `id`) USING BTREE
 ) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
 -- Records of comment
 -- ----------------------------
 
+-- ----------------------------
+-- Table structure for reading_progress
+-- ----------------------------
+DROP TABLE IF EXISTS `reading_progress`;
+CREATE TABLE `reading_progress`  (
+  `uid` varchar(30) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '用户id',
+  `bid` varchar(20) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '图书id',
+  `position` bigint(0) NOT NULL DEFAULT 0 COMMENT '读到的字节位置',
+  `charset` varchar(10) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL COMMENT 'position 所在那份文本的编码',
+  `chapter` int(0) NULL DEFAULT NULL COMMENT '读到第几章',
+  `update_time` datetime(6) NULL DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`uid`, `bid`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for user
 -- ----------------------------
@@ -0,0 +1,76 @@
+package com.zxl.ysyt;
+
+import com.zxl.ysyt.pojo.BookCase;
+import com.zxl.ysyt.service.BookCaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/17 22:40
+ *
+ * 逐条 save 和 saveBatch 的插入速度对比，会往库里写数据，只在 -Dbenchmark=true 时运行
+ * 数据源 url 里去掉 rewriteBatchedStatements=true 再跑一次，可以看出驱动改写多值 insert 带来的差别
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookcaseBatchBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(BookcaseBatchBenchmarkTests.class);
+
+    private static final int ROWS = 2000;
+
+    private static final String UID = "benchmark-" + System.currentTimeMillis();
+
+    @Autowired
+    private BookCaseService bookCaseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from book_case where uid = ?", UID);
+    }
+
+    @Test
+    void saveOneByOneVersusSaveBatch() {
+        bookCaseService.save(row(-1));     //预热连接池和语句缓存
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            bookCaseService.save(row(i));
+        }
+        long single = System.nanoTime() - start;
+
+        List<BookCase> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(row(i));
+        }
+        start = System.nanoTime();
+        bookCaseService.saveBatch(rows);
+        long batch = System.nanoTime() - start;
+
+        log.info(String.format("逐条 save：%d 行 %.1f ms，%.0f 行/秒", ROWS, single / 1e6, ROWS * 1e9 / single));
+        log.info(String.format("saveBatch：%d 行 %.1f ms，%.0f 行/秒", ROWS, batch / 1e6, ROWS * 1e9 / batch));
+        log.info(String.format("提升 %.1f 倍", (double) single / batch));
+    }
+
+    private static BookCase row(int i) {
+        BookCase bookCase = new BookCase();
+        bookCase.setUid(UID);
+        bookCase.setContent("http://localhost:9000/txt/benchmark-" + i + ".txt");
+        bookCase.setCover("http://localhost:9000/image/benchmark-" + i + ".jpg");
+        bookCase.setDescription("benchmark");
+        return bookCase;
+    }
+}
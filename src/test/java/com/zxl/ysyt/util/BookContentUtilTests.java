@@ -0,0 +1,177 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.lang.ContentPage;
+import com.zxl.ysyt.config.ContentConfig;
+import io.minio.ObjectStat;
+import okhttp3.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 10:00
+ *
+ * 分页时页尾的切分位置，以及原文和 UTF-8 副本之间的偏移，minio 用内存里的假对象代替
+ */
+class BookContentUtilTests {
+
+    private static final String TEXT = "骆驼祥子abc老舍著，北平的洋车夫有好多派";
+
+    @Test
+    void cutsAfterLastNewline() {
+        byte[] buf = "第一行\n第二".getBytes(Charset.forName("UTF-8"));
+        assertEquals("第一行\n".getBytes(Charset.forName("UTF-8")).length, BookContentUtil.safeCut(buf, buf.length, "UTF-8"));
+    }
+
+    @Test
+    void neverSplitsUtf8Character() {
+        byte[] buf = "你好".getBytes(Charset.forName("UTF-8"));
+        assertEquals(3, BookContentUtil.safeCut(buf, 4, "UTF-8"));
+        assertEquals(3, BookContentUtil.safeCut(buf, 5, "UTF-8"));
+        assertEquals(6, BookContentUtil.safeCut(buf, 6, "UTF-8"));
+    }
+
+    @Test
+    void neverSplitsGb2312Character() {
+        byte[] buf = "a你好".getBytes(Charset.forName("GB2312"));
+        assertEquals(1, BookContentUtil.safeCut(buf, 2, "GB2312"));
+        assertEquals(3, BookContentUtil.safeCut(buf, 3, "GB2312"));
+        assertEquals(3, BookContentUtil.safeCut(buf, 4, "GB2312"));
+    }
+
+    @Test
+    void alwaysMakesProgress() {
+        byte[] buf = "你".getBytes(Charset.forName("UTF-8"));
+        assertEquals(1, BookContentUtil.safeCut(buf, 1, "UTF-8"));
+    }
+
+    @Test
+    void smallPagesReassembleTheText() throws Exception {
+        for (String charset : new String[]{"GB2312", "UTF-8"}) {
+            byte[] all = TEXT.getBytes(charset);
+            BookContentUtil util = new BookContentUtil();
+            StringBuilder sb = new StringBuilder();
+            long offset = 0;
+            while (true) {
+                int n = (int) Math.min(BookContentUtil.MIN_PAGE_SIZE, all.length - offset);
+                byte[] buf = Arrays.copyOfRange(all, (int) offset, (int) offset + n);
+                ContentPage page = util.toPage(buf, n, offset, offset + n >= all.length, charset);
+                sb.append(page.getContent());
+                if (page.isEof()) {
+                    break;
+                }
+                offset = page.getNext();
+            }
+            assertEquals(TEXT, sb.toString(), charset);
+        }
+    }
+
+    @Test
+    void offsetsStayOnTheVariantTheyCameFrom() throws Exception {
+        FakeMinio minio = new FakeMinio();
+        minio.objects.put("txt/book.txt", TEXT.getBytes("GB2312"));
+        BookContentUtil util = util(minio);
+        String url = "http://localhost:9000/txt/book.txt";
+
+        //还没有副本时读第一页，偏移是 GB2312 的
+        ContentPage first = util.readPage(url, null, 0, BookContentUtil.MIN_PAGE_SIZE);
+        assertEquals("GB2312", first.getCharset());
+
+        //这时后台生成了 UTF-8 副本，带着 charset 续读仍然接得上
+        minio.objects.put("txt/utf8/book.txt", TEXT.getBytes("UTF-8"));
+        ContentPage rest = util.readPage(url, first.getCharset(), first.getNext(), 1024);
+        assertEquals("GB2312", rest.getCharset());
+        assertEquals(TEXT, first.getContent() + rest.getContent());
+
+        //元数据缓存过期以后，不带 charset 就按副本读，同一个偏移在副本里是另一个位置
+        clearStats(util);
+        ContentPage untagged = util.readPage(url, null, first.getNext(), 1024);
+        assertEquals("UTF-8", untagged.getCharset());
+        assertNotEquals(rest.getContent(), untagged.getContent());
+    }
+
+    @Test
+    void staleVariantFallsBackToOriginal() throws Exception {
+        FakeMinio minio = new FakeMinio();
+        minio.objects.put("txt/book.txt", TEXT.getBytes("GB2312"));
+        minio.objects.put("txt/utf8/book.txt", TEXT.getBytes("UTF-8"));
+        minio.sources.put("txt/utf8/book.txt", "0ld");
+        BookContentUtil util = util(minio);
+        String url = "http://localhost:9000/txt/book.txt";
+
+        //原文被同名覆盖过，副本记录的 ETag 对不上，读原文
+        assertEquals("GB2312", util.resolve(url, null).getCharset());
+
+        //后台任务按新原文重新生成副本后，又读副本
+        clearStats(util);
+        minio.sources.put("txt/utf8/book.txt", minio.statObject("txt", "book.txt").etag());
+        assertEquals("UTF-8", util.resolve(url, null).getCharset());
+    }
+
+    private static BookContentUtil util(FakeMinio minio) throws Exception {
+        ContentConfig config = new ContentConfig();
+        config.getDisk().setEnabled(false);
+        BookContentUtil util = new BookContentUtil();
+        set(util, "minioUtil", minio);
+        set(util, "contentConfig", config);
+        set(util, "diskContentCache", new DiskContentCache(config));
+        return util;
+    }
+
+    private static void clearStats(BookContentUtil util) throws Exception {
+        Field field = BookContentUtil.class.getDeclaredField("stats");
+        field.setAccessible(true);
+        ((Map<?, ?>) field.get(util)).clear();
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static class FakeMinio extends MinioUtil {
+        final Map<String, byte[]> objects = new HashMap<>();
+
+        //副本的 source-etag 元数据
+        final Map<String, String> sources = new HashMap<>();
+
+        @Override
+        public ObjectStat statObject(String bucketName, String objectName) throws java.io.IOException {
+            byte[] bytes = objects.get(bucketName + "/" + objectName);
+            if (bytes == null) {
+                return null;
+            }
+            String etag = Integer.toHexString(Arrays.hashCode(bytes));
+            String source = sources.get(bucketName + "/" + objectName);
+            if (source == null) {
+                return new ObjectStat(bucketName, objectName, ZonedDateTime.now(), bytes.length, etag, "text/plain");
+            }
+            return new ObjectStat(bucketName, objectName, new Headers.Builder()
+                    .add("ETag", "\"" + etag + "\"")
+                    .add("Content-Length", String.valueOf(bytes.length))
+                    .add("Last-Modified", "Mon, 01 Jan 2024 00:00:00 GMT")
+                    .add("Content-Type", "text/plain")
+                    .add("x-amz-meta-" + TxtVariants.SOURCE_ETAG, source)
+                    .build());
+        }
+
+        @Override
+        public InputStream getObject(String bucketName, String objectName, long offset, Long length) throws java.io.IOException {
+            byte[] bytes = objects.get(bucketName + "/" + objectName);
+            int end = length == null ? bytes.length : (int) Math.min(bytes.length, offset + length);
+            return new ByteArrayInputStream(Arrays.copyOfRange(bytes, (int) offset, end));
+        }
+    }
+}
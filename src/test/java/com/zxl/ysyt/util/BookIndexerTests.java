@@ -0,0 +1,76 @@
+package com.zxl.ysyt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 10:20
+ *
+ * 分页点和章节的扫描
+ */
+class BookIndexerTests {
+
+    private static final int PAGE_SIZE = 64;
+
+    @Test
+    void pagesStartAtLineStarts() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            sb.append("第").append(i + 1).append("章 标题\n正文正文正文\n");
+        }
+        byte[] bytes = sb.toString().getBytes("UTF-8");
+        BookIndex index = BookIndexer.build("txt/a.txt", "etag", new ByteArrayInputStream(bytes), PAGE_SIZE, "UTF-8");
+
+        assertEquals(40, index.chapterCount());
+        assertEquals("第1章 标题", index.chapter(0).getTitle());
+        for (int p = 0; p < index.pageCount(); p++) {
+            long offset = index.pageOffset(p);
+            assertTrue(offset == 0 || bytes[(int) offset - 1] == '\n', "第 " + p + " 页不在行首");
+        }
+    }
+
+    @Test
+    void splitsLongLineOnCharacterBoundaries() throws Exception {
+        for (String charset : new String[]{"UTF-8", "GB2312"}) {
+            char[] chars = new char[2000];
+            Arrays.fill(chars, '字');
+            String text = "a" + new String(chars);       //开头的单字节让 GB2312 的双字节字符从奇数位置开始
+            byte[] bytes = text.getBytes(charset);
+            BookIndex index = BookIndexer.build("txt/a.txt", "etag", new ByteArrayInputStream(bytes), PAGE_SIZE, charset);
+
+            assertTrue(index.pageCount() > 1, charset + " 没有换行的文本也要分页");
+            StringBuilder joined = new StringBuilder();
+            for (int p = 0; p < index.pageCount(); p++) {
+                long length = index.pageLength(p);
+                assertTrue(length <= PAGE_SIZE * 3 / 2 + 4, charset + " 第 " + p + " 页过长：" + length);
+                joined.append(new String(bytes, (int) index.pageOffset(p), (int) length, charset));
+            }
+            assertEquals(text, joined.toString(), charset + " 各页按偏移解码后应该拼回原文");
+        }
+    }
+
+    @Test
+    void persistedIndexKeepsSourceEtagAndCharset() throws Exception {
+        byte[] bytes = "第1章 开始\n正文\n第2章 继续\n正文\n".getBytes("GB2312");
+        BookIndex index = BookIndexer.build("txt/a.txt", "etag", new ByteArrayInputStream(bytes), PAGE_SIZE, "GB2312");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(out));
+        BookIndex read = BookIndex.readFrom(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+
+        assertEquals("txt/a.txt", read.getSource());
+        assertEquals("etag", read.getEtag());
+        assertEquals("GB2312", read.getCharset());
+        assertEquals(bytes.length, read.getSize());
+        assertEquals(index.chapters(), read.chapters());
+    }
+}
@@ -0,0 +1,62 @@
+package com.zxl.ysyt.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 16:00
+ *
+ * Range 请求头的解析
+ */
+class ByteRangeTests {
+
+    private static final long SIZE = 1000;
+
+    @Test
+    void parsesClosedOpenAndSuffixRanges() {
+        assertRange(0, 99, ByteRange.parse("bytes=0-99", SIZE));
+        assertRange(500, 999, ByteRange.parse("bytes=500-", SIZE));
+        assertRange(900, 999, ByteRange.parse("bytes=-100", SIZE));
+        assertRange(10, 20, ByteRange.parse("bytes= 10 - 20 ", SIZE));
+    }
+
+    @Test
+    void clampsToFileSize() {
+        assertRange(900, 999, ByteRange.parse("bytes=900-5000", SIZE));
+        assertRange(0, 999, ByteRange.parse("bytes=-5000", SIZE));
+    }
+
+    @Test
+    void startOutsideFileIsUnsatisfiable() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", SIZE));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", SIZE));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=0-", 0));
+    }
+
+    @Test
+    void malformedOrMultipleRangesFallBackToWholeFile() {
+        assertNull(ByteRange.parse(null, SIZE));
+        assertNull(ByteRange.parse("items=0-9", SIZE));
+        assertNull(ByteRange.parse("bytes=0-9,20-29", SIZE));
+        assertNull(ByteRange.parse("bytes=9-0", SIZE));
+        assertNull(ByteRange.parse("bytes=-", SIZE));
+        assertNull(ByteRange.parse("bytes=a-b", SIZE));
+        assertNull(ByteRange.parse("bytes=10", SIZE));
+    }
+
+    @Test
+    void lengthAndContentRange() {
+        ByteRange range = ByteRange.parse("bytes=100-199", SIZE);
+        assertEquals(100, range.length());
+        assertEquals("bytes 100-199/1000", range.contentRange(SIZE));
+    }
+
+    private static void assertRange(long start, long end, ByteRange range) {
+        assertEquals(start, range.getStart());
+        assertEquals(end, range.getEnd());
+    }
+}
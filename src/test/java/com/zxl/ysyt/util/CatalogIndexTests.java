@@ -0,0 +1,117 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.lang.Suggestion;
+import com.zxl.ysyt.pojo.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 16:20
+ *
+ * 输入联想：匹配、排序、增量修改和重建
+ */
+class CatalogIndexTests {
+
+    @Test
+    void ranksTitlePrefixThenTitleThenAuthorThenKeyword() {
+        CatalogIndex index = new CatalogIndex();
+        index.apply(Arrays.asList(
+                book("1", "西游记", "吴承恩", "神魔"),
+                book("2", "红楼梦", "曹雪芹", "西游"),
+                book("3", "大话西游", "刘镇伟", "电影"),
+                book("4", "三国演义", "西游作者", "历史"),
+                book("5", "西游记后传", "佚名", "续书")));
+
+        assertEquals(Arrays.asList("1", "5", "3", "4", "2"), ids(index.suggest("西游", 10)));
+        assertEquals(Arrays.asList("1", "5"), ids(index.suggest("西游", 2)));
+        assertEquals(Collections.singletonList("2"), ids(index.suggest("曹", 10)));
+        assertTrue(index.suggest("水浒", 10).isEmpty());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void matchesAfterNormalizingWidthCaseAndSpaces() {
+        CatalogIndex index = new CatalogIndex();
+        index.apply(Collections.singletonList(book("1", "Java 编程思想", "Bruce Eckel", null)));
+
+        assertEquals(Collections.singletonList("1"), ids(index.suggest("ＪＡＶＡ编程", 10)));
+        assertEquals(Collections.singletonList("1"), ids(index.suggest("bruceeck", 10)));
+        Suggestion s = index.suggest("java", 10).get(0);
+        assertEquals("Java 编程思想", s.getBname());     //返回原始写法
+    }
+
+    @Test
+    void bigramsMustBeContiguous() {
+        CatalogIndex index = new CatalogIndex();
+        index.apply(Collections.singletonList(book("1", "abxbc", "", "")));
+
+        assertTrue(index.suggest("abc", 10).isEmpty());
+        assertEquals(1, index.suggest("xbc", 10).size());
+    }
+
+    @Test
+    void updatesAndDeletesReplaceOldEntries() {
+        CatalogIndex index = new CatalogIndex();
+        index.apply(Arrays.asList(book("1", "旧书名", "甲", ""), book("2", "另一本", "乙", "")));
+
+        index.apply(Collections.singletonList(book("1", "新书名", "甲", "")));
+        assertTrue(index.suggest("旧书", 10).isEmpty());
+        assertEquals(Collections.singletonList("1"), ids(index.suggest("新书", 10)));
+
+        Book deleted = book("2", "另一本", "乙", "");
+        deleted.setDeleted(1);
+        index.apply(Collections.singletonList(deleted));
+        assertTrue(index.suggest("另一", 10).isEmpty());
+        assertEquals(1, index.stats().get("books"));
+        assertEquals(2, index.stats().get("deadSlots"));
+    }
+
+    @Test
+    void rebuildsOnceMostSlotsAreDead() {
+        CatalogIndex index = new CatalogIndex();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            books.add(book(String.valueOf(i), "第" + i + "册", "作者", ""));
+        }
+        index.apply(books);
+
+        List<Book> removed = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            Book b = book(String.valueOf(i), "第" + i + "册", "作者", "");
+            b.setDeleted(1);
+            removed.add(b);
+        }
+        index.apply(removed);
+
+        assertEquals(100, index.stats().get("books"));
+        assertEquals(0, index.stats().get("deadSlots"));
+        assertEquals(Collections.singletonList("1150"), ids(index.suggest("第1150册", 10)));
+        assertTrue(index.suggest("第5册", 10).isEmpty());
+    }
+
+    private static Book book(String id, String bname, String author, String keyword) {
+        Book book = new Book();
+        book.setId(id);
+        book.setBname(bname);
+        book.setAuthor(author);
+        book.setKeyword(keyword);
+        book.setDeleted(0);
+        return book;
+    }
+
+    private static List<String> ids(List<Suggestion> suggestions) {
+        List<String> ids = new ArrayList<>();
+        for (Suggestion s : suggestions) {
+            ids.add(s.getId());
+        }
+        return ids;
+    }
+}
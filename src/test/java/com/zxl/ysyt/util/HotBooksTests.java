@@ -0,0 +1,128 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.common.lang.HotBook;
+import com.zxl.ysyt.pojo.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 16:30
+ *
+ * 热门榜：sketch 估计、Space-Saving 候选替换、时间窗口轮换
+ */
+class HotBooksTests {
+
+    private HotBooks hotBooks;
+
+    //模拟已经删除的书
+    private final Set<String> deleted = new HashSet<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hotBooks = new HotBooks();
+        Field field = HotBooks.class.getDeclaredField("catalogSnapshot");
+        field.setAccessible(true);
+        field.set(hotBooks, new CatalogSnapshot() {
+            @Override
+            public List<Book> findByIds(List<String> ids) {
+                List<Book> books = new ArrayList<>();
+                for (String id : ids) {
+                    Book book = null;
+                    if (!deleted.contains(id)) {
+                        book = new Book();
+                        book.setId(id);
+                        book.setBname("书" + id);
+                    }
+                    books.add(book);
+                }
+                return books;
+            }
+        });
+    }
+
+    @Test
+    void ranksSkewedTrafficByCount() {
+        //第 i 本书打开 3000 / i 次，共 1000 本，次序打乱
+        List<String> stream = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            for (int k = 0; k < 3000 / i; k++) {
+                stream.add(String.valueOf(i));
+            }
+        }
+        Collections.shuffle(stream, new Random(42));
+        stream.forEach(hotBooks::hit);
+        hotBooks.refresh();
+
+        List<HotBook> top = hotBooks.top(10);
+        assertEquals(10, top.size());
+        for (int i = 0; i < 10; i++) {
+            HotBook hot = top.get(i);
+            long actual = 3000 / (i + 1);
+            assertEquals(String.valueOf(i + 1), hot.getId());
+            assertEquals("书" + (i + 1), hot.getBname());
+            assertTrue(hot.getScore() >= actual, "Count-Min 只会高估");
+            assertTrue(hot.getScore() <= actual + actual / 10, "第 " + (i + 1) + " 名估计偏差过大：" + hot.getScore());
+        }
+        assertEquals(HotBooks.TOP_K, hotBooks.top(1000).size());
+        assertTrue(hotBooks.top(-1).isEmpty());
+    }
+
+    @Test
+    void lateHeavyHitterDisplacesTailCandidates() {
+        for (int i = 0; i < 500; i++) {
+            hotBooks.hit("tail" + i);      //候选早就满了
+        }
+        for (int i = 0; i < 20; i++) {
+            hotBooks.hit("late");
+        }
+        hotBooks.refresh();
+
+        assertEquals("late", hotBooks.top(1).get(0).getId());
+        assertTrue(hotBooks.top(1).get(0).getScore() >= 20);
+    }
+
+    @Test
+    void oldBucketsFallOutOfTheWindow() {
+        for (int i = 0; i < 5; i++) {
+            hotBooks.hit("old");
+        }
+        for (int r = 0; r < 11; r++) {
+            hotBooks.rotate();
+        }
+        hotBooks.hit("new");
+        hotBooks.refresh();
+        assertEquals(2, hotBooks.top(10).size(), "一小时之内的还在榜上");
+        assertEquals("old", hotBooks.top(1).get(0).getId());
+
+        hotBooks.rotate();      //写 old 的那个桶被清空重用
+        hotBooks.refresh();
+        assertEquals(1, hotBooks.top(10).size());
+        assertEquals("new", hotBooks.top(1).get(0).getId());
+    }
+
+    @Test
+    void deletedBooksAndNullIdsAreSkipped() {
+        hotBooks.hit(null);
+        hotBooks.hit("gone");
+        hotBooks.hit("gone");
+        hotBooks.hit("kept");
+        deleted.add("gone");
+        hotBooks.refresh();
+
+        assertEquals(1, hotBooks.top(10).size());
+        assertEquals("kept", hotBooks.top(10).get(0).getId());
+        assertEquals(3L, hotBooks.stats().get("hits"));
+    }
+}
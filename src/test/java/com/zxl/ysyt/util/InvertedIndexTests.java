@@ -0,0 +1,137 @@
+package com.zxl.ysyt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 15:10
+ *
+ * 全文索引的分词、打分、删除和整理
+ */
+class InvertedIndexTests {
+
+    @Test
+    void tokenizesBigramsAndWords() {
+        assertEquals(Arrays.asList("天气", "气很", "很好", "java8", "x"),
+                InvertedIndex.tokenize("天气很好，ＪＡＶＡ8 x"));
+        assertEquals(Collections.singletonList("雨"), InvertedIndex.tokenize("雨。"));
+    }
+
+    @Test
+    void phraseHitRanksFirstAndIsHighlighted() {
+        InvertedIndex index = new InvertedIndex();
+        index.add("1", "天空很蓝，今天的气温不错。");
+        index.add("2", "今天天气很好，适合出门。");
+        index.add("3", "与天气无关的一段话，只是凑数。");
+
+        List<InvertedIndex.Hit> hits = index.search("天气很好", 10);
+        assertEquals(1, hits.size());
+        assertEquals("2", hits.get(0).getKey());
+        assertTrue(hits.get(0).getSnippet().contains("<em>天气很好</em>"), hits.get(0).getSnippet());
+
+        hits = index.search("天气", 10);
+        assertEquals(2, hits.size());
+        assertTrue(index.search("下雪", 10).isEmpty());
+    }
+
+    @Test
+    void removedDocumentScoresLikeItWasNeverAdded() {
+        InvertedIndex index = new InvertedIndex();
+        index.add("1", text(1));
+        index.add("2", text(2));
+        index.add("3", text(3));
+        index.remove("2");
+
+        InvertedIndex fresh = new InvertedIndex();
+        fresh.add("1", text(1));
+        fresh.add("3", text(3));
+
+        assertFalse(index.contains("2"));
+        assertEquals(fresh.chars(), index.chars());
+        assertEquals(scores(fresh, "章节"), scores(index, "章节"));
+        assertEquals(scores(fresh, "第二"), scores(index, "第二"));
+    }
+
+    @Test
+    void addingSameKeyReplacesOldText() {
+        InvertedIndex index = new InvertedIndex();
+        index.add("1", "春眠不觉晓");
+        index.add("1", "处处闻啼鸟");
+
+        assertTrue(index.search("春眠", 10).isEmpty());
+        assertEquals(1, index.search("啼鸟", 10).size());
+        assertEquals(5L, index.chars());
+        assertEquals(1, index.stats().get("documents"));
+    }
+
+    @Test
+    void compactDropsDeadPostingsAndKeepsResults() {
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < 20; i++) {
+            index.add(String.valueOf(i), text(i) + "独有词" + i + "号");
+        }
+        for (int i = 0; i < 20; i += 2) {
+            index.remove(String.valueOf(i));
+        }
+        Map<String, Double> before = scores(index, "章节");
+        int termsBefore = (Integer) index.stats().get("terms");
+        assertTrue((Long) index.stats().get("deadSegments") > 0);
+
+        index.compact();
+
+        assertEquals(0L, index.stats().get("deadSegments"));
+        assertTrue((Integer) index.stats().get("terms") < termsBefore, "只在删掉的文档里出现的词应该被回收");
+        assertEquals(before, scores(index, "章节"));
+        assertTrue(index.search("独有词0号", 10).isEmpty());
+        assertEquals("1", index.search("独有词1号", 10).get(0).getKey());
+
+        //整理后编号变了，继续增删也要正常
+        index.add("0", text(0));
+        index.remove("1");
+        assertEquals(10, scores(index, "章节").size());
+    }
+
+    @Test
+    void compactsAutomaticallyOnceEnoughSegmentsAreDead() {
+        InvertedIndex index = new InvertedIndex();
+        StringBuilder big = new StringBuilder();
+        while (big.length() < InvertedIndex.SEGMENT_CHARS * InvertedIndex.COMPACT_MIN_SEGMENTS) {
+            big.append(text(big.length() % 97));
+        }
+        index.add("big", big.toString());
+        index.add("small", text(1));
+        index.remove("big");
+
+        assertEquals(0L, index.stats().get("deadSegments"));
+        assertEquals(1, scores(index, "章节").size());
+    }
+
+    private static String text(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            sb.append("第").append(i % 2 == 0 ? "二" : "一").append("章节的正文，编号").append(n).append("，");
+            for (int k = 0; k < n % 5; k++) {
+                sb.append("章节");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, Double> scores(InvertedIndex index, String query) {
+        Map<String, Double> scores = new HashMap<>();
+        for (InvertedIndex.Hit hit : index.search(query, 50)) {
+            scores.merge(hit.getKey(), hit.getScore(), Double::sum);
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,119 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.SensitiveConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 16:40
+ *
+ * 敏感词自动机的匹配、打码、干扰字符，以及过滤器的策略和词库重新加载
+ */
+class SensitiveFilterTests {
+
+    @Test
+    void scanFindsWordsAnywhereIncludingSuffixesOfOtherWords() {
+        SensitiveFilter.Automaton automaton = SensitiveFilter.Automaton.build(Arrays.asList("he", "she", "his", "hers"));
+
+        assertEquals(4, automaton.words);
+        assertTrue(automaton.scan("ushers", null));
+        assertTrue(automaton.scan("ahishe", null));
+        assertFalse(automaton.scan("hxsxe", null));
+        assertFalse(SensitiveFilter.Automaton.build(Collections.emptyList()).scan("anything", null));
+    }
+
+    @Test
+    void masksEveryOccurrenceAndOverlaps() {
+        SensitiveFilter.Automaton automaton = SensitiveFilter.Automaton.build(Arrays.asList("he", "she", "hers"));
+
+        assertEquals("u*****", mask(automaton, "ushers"));     //she 和 hers 重叠，he 在 she 里面
+        assertEquals("u***r", mask(automaton, "usher"));
+        assertEquals("**x**", mask(automaton, "hexhe"));
+        assertEquals("nothing", mask(automaton, "nothing"));
+    }
+
+    @Test
+    void skipsNoiseAndNormalizesWidthAndCase() {
+        SensitiveFilter.Automaton automaton = SensitiveFilter.Automaton.build(Arrays.asList("敏感", "ABC"));
+
+        assertEquals("这是**词", mask(automaton, "这是敏感词"));
+        assertEquals("这是*****词", mask(automaton, "这是敏 . 感词"));       //夹在中间的干扰字符一起打码
+        assertEquals(" ***** ", mask(automaton, " ａ-ｂ_Ｃ "));
+        assertFalse(automaton.scan("敏x感", null));
+        assertTrue(SensitiveFilter.isNoise('，'));
+        assertTrue(SensitiveFilter.isNoise('　'));
+        assertFalse(SensitiveFilter.isNoise('敏'));
+    }
+
+    @Test
+    void wordsWithNoiseInDictionaryAreStoredWithoutIt() {
+        SensitiveFilter.Automaton automaton = SensitiveFilter.Automaton.build(Arrays.asList("敏 感", "..."));
+
+        assertEquals(1, automaton.words);       //全是干扰字符的词被丢掉
+        assertEquals("**", mask(automaton, "敏感"));
+    }
+
+    @Test
+    void masksWordsLongerThanTheRingBuffer() {
+        StringBuilder word = new StringBuilder();
+        StringBuilder noisy = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            char c = (char) ('a' + i % 26);
+            word.append(c);
+            noisy.append(c).append(i % 10 == 0 ? " " : "");
+        }
+        SensitiveFilter.Automaton automaton = SensitiveFilter.Automaton.build(Collections.singletonList(word.toString()));
+
+        String text = "前" + noisy + "后";
+        String masked = mask(automaton, text);
+        assertEquals('前', masked.charAt(0));
+        assertEquals('后', masked.charAt(masked.length() - 1));
+        for (int i = 1; i < masked.length() - 1; i++) {
+            assertEquals('*', masked.charAt(i), "第 " + i + " 个字符没有打码");
+        }
+    }
+
+    @Test
+    void filterAppliesPolicyAndReloadsChangedDictionary() throws Exception {
+        File dictionary = File.createTempFile("sensitive", ".txt");
+        dictionary.deleteOnExit();
+        Files.write(dictionary.toPath(), "# 注释\n坏词\n\n".getBytes(StandardCharsets.UTF_8));
+        SensitiveConfig config = new SensitiveConfig();
+        config.setDictionary(dictionary.toURI().toString());
+        SensitiveFilter filter = new SensitiveFilter(config, new DefaultResourceLoader());
+        filter.init();
+
+        assertEquals(1, filter.stats().get("words"));
+        assertNull(filter.screen("一个坏词", SensitiveFilter.Policy.REJECT));
+        assertEquals("一个**", filter.screen("一个坏词", SensitiveFilter.Policy.MASK));
+        String clean = "干净的话";
+        assertSame(clean, filter.screen(clean, SensitiveFilter.Policy.MASK));
+        assertSame(clean, filter.screen(clean, SensitiveFilter.Policy.REJECT));
+
+        Files.write(dictionary.toPath(), "坏词\n新词\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(dictionary.setLastModified(dictionary.lastModified() + 2000));
+        filter.reloadIfChanged();
+        assertEquals(2, filter.stats().get("words"));
+        assertTrue(filter.contains("有个新词"));
+        assertEquals(3L, filter.stats().get("hits"));
+    }
+
+    private static String mask(SensitiveFilter.Automaton automaton, String text) {
+        char[] chars = text.toCharArray();
+        automaton.scan(text, chars);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,156 @@
+package com.zxl.ysyt.util;
+
+import com.zxl.ysyt.config.SimilarConfig;
+import com.zxl.ysyt.pojo.Book;
+import com.zxl.ysyt.pojo.BookCase;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 16:40
+ *
+ * 相似图书的增量维护：一本书或一条书架记录改了以后，改动前后和它相似的书都要重算
+ */
+class SimilarBooksTests {
+
+    @Test
+    void authorEditReranksBothSides() throws Exception {
+        SimilarBooks similar = new SimilarBooks(new SimilarConfig());
+        similar.applyBook(book("1", "老舍", null), false);
+        similar.applyBook(book("2", "老舍", null), false);
+        similar.applyBook(book("3", "鲁迅", null), false);
+        similar.recompute();
+        assertEquals(Arrays.asList("2"), ids(similar, "1"));
+        assertTrue(ids(similar, "3").isEmpty());
+
+        //3 改成老舍，原来的两本都要把它排进来
+        similar.applyBook(book("3", "老舍", null), true);
+        similar.recompute();
+        assertEquals(Arrays.asList("2", "3"), ids(similar, "1"));
+        assertEquals(Arrays.asList("1", "3"), ids(similar, "2"));
+        assertEquals(Arrays.asList("1", "2"), ids(similar, "3"));
+
+        //再改回去，改动前的邻居也要重算，把它去掉
+        similar.applyBook(book("3", "鲁迅", null), true);
+        similar.recompute();
+        assertEquals(Arrays.asList("2"), ids(similar, "1"));
+        assertEquals(Arrays.asList("1"), ids(similar, "2"));
+        assertTrue(ids(similar, "3").isEmpty());
+    }
+
+    @Test
+    void keywordEditReranksBothSides() throws Exception {
+        SimilarBooks similar = new SimilarBooks(new SimilarConfig());
+        similar.applyBook(book("1", null, "骆驼祥子"), false);
+        similar.applyBook(book("2", null, "骆驼"), false);
+        similar.applyBook(book("3", null, "春天"), false);
+        similar.recompute();
+        assertEquals(Arrays.asList("2"), ids(similar, "1"));
+
+        //3 的关键字和 1 完全一样，排到 2 前面
+        similar.applyBook(book("3", null, "骆驼祥子"), true);
+        similar.recompute();
+        assertEquals(Arrays.asList("3", "2"), ids(similar, "1"));
+        assertEquals(Arrays.asList("1", "3"), ids(similar, "2"));
+
+        //1 的关键字改得和谁都不沾边，2 和 3 都不再推荐它
+        similar.applyBook(book("1", null, "呐喊"), true);
+        similar.recompute();
+        assertTrue(ids(similar, "1").isEmpty());
+        assertEquals(Arrays.asList("3"), ids(similar, "2"));
+        assertEquals(Arrays.asList("2"), ids(similar, "3"));
+    }
+
+    @Test
+    void unshelvingDropsCoShelfScore() throws Exception {
+        SimilarBooks similar = new SimilarBooks(new SimilarConfig());
+        similar.applyBook(book("1", "老舍", null), false);
+        similar.applyBook(book("2", "鲁迅", null), false);
+        similar.applyRow(row(10, "u1", "1"), false);
+        similar.applyRow(row(11, "u1", "2"), false);
+        similar.recompute();
+        assertEquals(Arrays.asList("2"), ids(similar, "1"));
+        assertEquals(0.3, scores(similar, "1").get("2"), 1e-9);
+
+        //从书架上拿掉一本，两本书都不再有同书架相似度
+        BookCase removed = row(11, "u1", "2");
+        removed.setDeleted(1);
+        similar.applyRow(removed, true);
+        similar.recompute();
+        assertTrue(ids(similar, "1").isEmpty());
+        assertTrue(ids(similar, "2").isEmpty());
+    }
+
+    @Test
+    void deletedBookLeavesTheTable() throws Exception {
+        SimilarBooks similar = new SimilarBooks(new SimilarConfig());
+        similar.applyBook(book("1", "老舍", null), false);
+        similar.applyBook(book("2", "老舍", null), false);
+        similar.recompute();
+        assertTrue(table(similar).containsKey("2"));
+
+        Book deleted = book("2", "老舍", null);
+        deleted.setDeleted(1);
+        similar.applyBook(deleted, true);
+        similar.recompute();
+        assertFalse(table(similar).containsKey("2"));
+        assertFalse(table(similar).containsKey("1"), "只和被删的书相似，表里不应该再有它");
+    }
+
+    private static Book book(String id, String author, String keyword) {
+        Book book = new Book();
+        book.setId(id);
+        book.setAuthor(author);
+        book.setKeyword(keyword);
+        book.setUrl("http://localhost:9000/txt/" + id + ".txt");
+        book.setDeleted(0);
+        return book;
+    }
+
+    private static BookCase row(int id, String uid, String bookId) {
+        BookCase row = new BookCase();
+        row.setId(id);
+        row.setUid(uid);
+        row.setContent("http://localhost:9000/txt/" + bookId + ".txt");
+        row.setDeleted(0);
+        return row;
+    }
+
+    private static List<String> ids(SimilarBooks similar, String id) throws Exception {
+        return Arrays.asList(scores(similar, id).keySet().toArray(new String[0]));
+    }
+
+    //按相似度从高到低的 id -> 分数
+    private static Map<String, Double> scores(SimilarBooks similar, String id) throws Exception {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        List<?> neighbours = table(similar).get(id);
+        if (neighbours == null) {
+            return scores;
+        }
+        for (Object neighbour : neighbours) {
+            scores.put((String) get(neighbour, "id"), (Double) get(neighbour, "score"));
+        }
+        return scores;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<?>> table(SimilarBooks similar) throws Exception {
+        return (Map<String, List<?>>) get(similar, "table");
+    }
+
+    private static Object get(Object target, String name) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
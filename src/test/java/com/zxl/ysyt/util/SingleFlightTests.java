@@ -0,0 +1,130 @@
+package com.zxl.ysyt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author 汉卿
+ * @date 2026/10/18 16:10
+ *
+ * 同一个键上的并发读取只执行一次
+ */
+class SingleFlightTests {
+
+    private static final int WAITERS = 8;
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(WAITERS + 1);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("a", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "正文";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < WAITERS; i++) {
+                followers.add(pool.submit(() -> flight.execute("a", () -> {
+                    executions.incrementAndGet();
+                    return "不该执行";
+                })));
+            }
+            waitFor(() -> (Long) flight.stats().get("coalesced") == WAITERS);
+            release.countDown();
+
+            String value = leader.get(5, TimeUnit.SECONDS);
+            for (Future<String> f : followers) {
+                assertSame(value, f.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(1L, flight.stats().get("calls"));
+            assertEquals(0, flight.stats().get("inFlight"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failureReachesEveryWaiterAndIsNotCached() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute("a", () -> {
+                started.countDown();
+                await(release);
+                throw new IOException("minio 不可用");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> follower = pool.submit(() -> flight.execute("a", () -> "不该执行"));
+            waitFor(() -> (Long) flight.stats().get("coalesced") == 1);
+            release.countDown();
+
+            for (Future<String> f : Arrays.asList(leader, follower)) {
+                Exception e = assertThrows(Exception.class, () -> f.get(5, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof IOException);
+                assertEquals("minio 不可用", e.getCause().getMessage());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        //读完就从表里移除，下一次重新执行
+        assertEquals("恢复了", flight.execute("a", () -> "恢复了"));
+        assertEquals(2L, flight.stats().get("calls"));
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        String b = flight.execute("a", () -> flight.execute("b", () -> "b"));
+        assertEquals("b", b);
+        assertEquals(2L, flight.stats().get("calls"));
+        assertEquals(0L, flight.stats().get("coalesced"));
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.met()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+
+    private interface Condition {
+        boolean met();
+    }
+}